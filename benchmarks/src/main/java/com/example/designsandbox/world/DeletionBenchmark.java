@@ -0,0 +1,83 @@
+package com.example.designsandbox.world;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deleting a sandbox folder: the rename to the trash a player waits for, and the file tree walk
+ * that runs on performance.delete-threads afterwards. Each measurement deletes a fresh folder.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeletionBenchmark {
+    /** Region files in the sandbox folder */
+    @Param({ "64", "512" })
+    public int files;
+
+    private Path directory;
+    private Path fixture;
+    private Path sandbox;
+    private Path trash;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = RegionFixtures.createDirectory("delete");
+        fixture = directory.resolve("fixture").resolve("r.0.0.mca");
+        RegionFixtures.writeRegion(fixture, 0.5, 8192, 1);
+        trash = directory.resolve("trash");
+        Files.createDirectories(trash);
+    }
+
+    @Setup(Level.Iteration)
+    public void createSandbox() throws IOException {
+        sandbox = directory.resolve("sandbox");
+        Path regions = sandbox.resolve("region");
+        Files.createDirectories(regions);
+        for (int i = 0; i < files; i++) {
+            Files.copy(fixture, regions.resolve("r." + i + ".0.mca"));
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void emptyTrash() throws IOException {
+        DeletionService.deleteRecursively(sandbox);
+        DeletionService.deleteRecursively(trash);
+        Files.createDirectories(trash);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DeletionService.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void moveToTrash() throws IOException {
+        Files.move(sandbox, trash.resolve("sandbox"), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Benchmark
+    public void deleteTree() throws IOException {
+        DeletionService.deleteRecursively(sandbox);
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.designsandbox.world;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies a set of regions on a fixed pool, the way a build spreads its regions over
+ * performance.copy-threads
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelCopyBenchmark {
+    @Param({ "1", "2", "4", "8" })
+    public int threads;
+
+    @Param({ "16" })
+    public int regions;
+
+    /** "chunk" or "file", as performance.copy-mode */
+    @Param({ "chunk", "file" })
+    public String mode;
+
+    private Path directory;
+    private ExecutorService executor;
+    private List<Callable<Void>> copies;
+    private long sourceBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = RegionFixtures.createDirectory("parallel");
+        executor = Executors.newFixedThreadPool(threads);
+        copies = new ArrayList<>();
+        Files.createDirectories(directory.resolve("target"));
+
+        for (int i = 0; i < regions; i++) {
+            String name = "r." + i + ".0.mca";
+            Path source = directory.resolve("source").resolve(name);
+            Path target = directory.resolve("target").resolve(name);
+            sourceBytes += RegionFixtures.writeRegion(source, 1.0, 16384, i);
+            copies.add(() -> {
+                if ("file".equals(mode)) {
+                    Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                } else {
+                    RegionFile.copyChunks(source, target, index -> true);
+                }
+                return null;
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        DeletionService.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void copyRegions(CopiedBytes bytes) throws InterruptedException, ExecutionException {
+        for (Future<Void> copy : executor.invokeAll(copies)) {
+            copy.get();
+        }
+        bytes.add(sourceBytes);
+    }
+}
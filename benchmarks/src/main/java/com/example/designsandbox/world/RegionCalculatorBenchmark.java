@@ -0,0 +1,55 @@
+package com.example.designsandbox.world;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of working out the chunks of a sandbox at different radii (world.radius), and of walking
+ * the resulting filters the way a chunk-mode copy does
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegionCalculatorBenchmark {
+    @Param({ "250", "1000", "2000" })
+    public int radius;
+
+    private Map<RegionCalculator.RegionCoordinate, BitSet> chunks;
+
+    @Setup
+    public void setUp() {
+        chunks = RegionCalculator.calculateChunks(0, 0, radius);
+    }
+
+    @Benchmark
+    public Map<RegionCalculator.RegionCoordinate, BitSet> calculate() {
+        return RegionCalculator.calculateChunks(0, 0, radius);
+    }
+
+    @Benchmark
+    public int walkFilters() {
+        int copied = 0;
+        for (BitSet regionChunks : chunks.values()) {
+            for (int i = 0; i < RegionFile.CHUNKS_PER_REGION; i++) {
+                if (regionChunks.get(i)) copied++;
+            }
+        }
+        return copied;
+    }
+}
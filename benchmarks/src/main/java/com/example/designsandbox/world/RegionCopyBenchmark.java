@@ -0,0 +1,99 @@
+package com.example.designsandbox.world;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+/**
+ * Copies one region file the ways a sandbox build can: as a whole file (performance.copy-mode
+ * region without reflinks), chunk by chunk (copy-mode chunk), chunk by chunk for a region cut by
+ * the radius, and recompressed to LZ4 (performance.region-rewrite lz4). Also hashes it as
+ * performance.verify does.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegionCopyBenchmark {
+    /** Fraction of the region's chunks that exist */
+    @Param({ "0.25", "1.0" })
+    public double fill;
+
+    /** Uncompressed size of each chunk */
+    @Param({ "8192", "65536" })
+    public int chunkBytes;
+
+    private Path directory;
+    private Path source;
+    private Path target;
+    private long sourceBytes;
+    private IntPredicate edgeChunks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = RegionFixtures.createDirectory("copy");
+        source = directory.resolve("source").resolve("r.0.0.mca");
+        target = directory.resolve("target").resolve("r.0.0.mca");
+        sourceBytes = RegionFixtures.writeRegion(source, fill, chunkBytes, 1);
+        Files.createDirectories(target.getParent());
+
+        // The region a 256 block radius around chunk 0,0 reaches into from its corner
+        BitSet chunks = RegionCalculator.calculateChunks(0, 0, 256).get(new RegionCalculator.RegionCoordinate(0, 0));
+        edgeChunks = chunks::get;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DeletionService.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void fileCopy(CopiedBytes bytes) throws IOException {
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        bytes.add(sourceBytes);
+    }
+
+    @Benchmark
+    public long chunkCopy(CopiedBytes bytes) throws IOException {
+        bytes.add(sourceBytes);
+        return RegionFile.copyChunks(source, target, index -> true);
+    }
+
+    @Benchmark
+    public long partialChunkCopy(CopiedBytes bytes) throws IOException {
+        bytes.add(sourceBytes);
+        return RegionFile.copyChunks(source, target, edgeChunks);
+    }
+
+    @Benchmark
+    public long lz4Copy(CopiedBytes bytes) throws IOException {
+        bytes.add(sourceBytes);
+        return RegionFile.copyChunks(source, target, index -> true, ChunkCodec.recompress(ChunkCodec.LZ4));
+    }
+
+    @Benchmark
+    public long contentHash(CopiedBytes bytes) throws IOException {
+        bytes.add(sourceBytes);
+        return RegionFile.contentHash(source, index -> true);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.designsandbox.world;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+/**
+ * Writes synthetic region files for the benchmarks.
+ *
+ * A present chunk is a zlib-compressed NBT compound holding a byte array of the given size, filled
+ * with a few repeating values so it compresses about as well as terrain. Every fourth chunk gets a
+ * spare sector, like regions the server has saved many times.
+ */
+final class RegionFixtures {
+    private RegionFixtures() {
+    }
+
+    /**
+     * Creates an empty directory for fixtures under java.io.tmpdir
+     */
+    static Path createDirectory(String name) throws IOException {
+        return Files.createTempDirectory("designsandbox-" + name);
+    }
+
+    /**
+     * Writes a region file
+     * @param fill The fraction of the 1024 chunks that are present
+     * @param chunkBytes The uncompressed size of each chunk's data
+     * @return The size of the file
+     */
+    static long writeRegion(Path file, double fill, int chunkBytes, long seed) throws IOException {
+        Random random = new Random(seed);
+        int[] locations = new int[RegionFile.CHUNKS_PER_REGION];
+        int[] timestamps = new int[RegionFile.CHUNKS_PER_REGION];
+
+        Files.createDirectories(file.getParent());
+        try (FileChannel out = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int nextSector = 2;
+            for (int i = 0; i < RegionFile.CHUNKS_PER_REGION; i++) {
+                if (random.nextDouble() >= fill) continue;
+
+                byte[] chunk = ChunkCodec.encode(ChunkCodec.ZLIB, chunkNbt(random, chunkBytes));
+                int sectors = (chunk.length + 4 + RegionFile.SECTOR_BYTES - 1) / RegionFile.SECTOR_BYTES;
+                ByteBuffer buffer = ByteBuffer.allocate((sectors + (i % 4 == 0 ? 1 : 0)) * RegionFile.SECTOR_BYTES);
+                buffer.putInt(chunk.length).put(chunk).clear();
+                while (buffer.hasRemaining()) {
+                    out.write(buffer, (long) nextSector * RegionFile.SECTOR_BYTES + buffer.position());
+                }
+
+                locations[i] = (nextSector << 8) | sectors;
+                timestamps[i] = 1_700_000_000 + i;
+                nextSector += buffer.capacity() / RegionFile.SECTOR_BYTES;
+            }
+
+            ByteBuffer header = ByteBuffer.allocate(RegionFile.HEADER_BYTES);
+            header.asIntBuffer().put(locations).put(timestamps);
+            while (header.hasRemaining()) {
+                out.write(header, header.position());
+            }
+            return out.size();
+        }
+    }
+
+    private static byte[] chunkNbt(Random random, int size) throws IOException {
+        byte[] data = new byte[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = (byte) (random.nextInt(8) == 0 ? random.nextInt() : i / 64 % 4);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(size + 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(10);
+        out.writeUTF("");
+        out.writeByte(7);
+        out.writeUTF("data");
+        out.writeInt(size);
+        out.write(data);
+        out.writeByte(0);
+        return bytes.toByteArray();
+    }
+}
@@ -1,10 +1,17 @@
 package com.example.designsandbox;
 
 import com.example.designsandbox.commands.DesignCommand;
+import com.example.designsandbox.metrics.Metrics;
+import com.example.designsandbox.world.CopyScheduler;
+import com.example.designsandbox.world.LazyRegionLoader;
+import com.example.designsandbox.world.SandboxIdleTracker;
+import com.example.designsandbox.world.SourceSnapshotter;
+import com.example.designsandbox.world.VoidChunkGenerator;
 import com.example.designsandbox.world.WorldManager;
 import com.onarandombox.MultiverseCore.MultiverseCore;
 import net.luckperms.api.LuckPerms;
 import org.bukkit.Bukkit;
+import org.bukkit.generator.ChunkGenerator;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.bukkit.plugin.java.JavaPlugin;
@@ -15,6 +22,10 @@ public class DesignSandboxPlugin extends JavaPlugin {
     private LuckPerms luckPerms;
     private boolean perWorldInventoryEnabled;
     private WorldManager worldManager;
+    private CopyScheduler copyScheduler;
+    private LazyRegionLoader lazyRegionLoader;
+    private SourceSnapshotter sourceSnapshotter;
+    private Metrics metrics;
 
     @Override
     public void onEnable() {
@@ -30,9 +41,25 @@ public class DesignSandboxPlugin extends JavaPlugin {
             return;
         }
 
-        // Initialize world manager
+        // Initialize copy scheduler and world manager
+        metrics = new Metrics(this);
+        copyScheduler = new CopyScheduler(this);
+        sourceSnapshotter = new SourceSnapshotter(this);
         worldManager = new WorldManager(this);
 
+        // Copy the rest of lazily built sandboxes as players move
+        lazyRegionLoader = new LazyRegionLoader(this);
+        getServer().getPluginManager().registerEvents(lazyRegionLoader, this);
+        worldManager.start();
+        metrics.start();
+
+        // Unload sandboxes nobody is using
+        if (getConfig().getBoolean("maintenance.unload.enabled", true)) {
+            SandboxIdleTracker idleTracker = new SandboxIdleTracker(this);
+            getServer().getPluginManager().registerEvents(idleTracker, this);
+            idleTracker.start();
+        }
+
         // Register commands
         DesignCommand designCommand = new DesignCommand(this);
         getCommand("design").setExecutor(designCommand);
@@ -48,9 +75,20 @@ public class DesignSandboxPlugin extends JavaPlugin {
             worldManager.cleanup();
         }
 
+        // Stop sandbox builds
+        if (copyScheduler != null) {
+            copyScheduler.shutdown();
+        }
+
         getLogger().info("Design-Sandbox has been disabled!");
     }
 
+    @Override
+    public ChunkGenerator getDefaultWorldGenerator(String worldName, String id) {
+        // Pooled sandbox worlds are created empty and filled with copied regions
+        return new VoidChunkGenerator();
+    }
+
     private boolean checkDependencies() {
         // Check Multiverse-Core
         Plugin mvPlugin = getServer().getPluginManager().getPlugin("Multiverse-Core");
@@ -101,4 +139,20 @@ public class DesignSandboxPlugin extends JavaPlugin {
     public WorldManager getWorldManager() {
         return worldManager;
     }
+
+    public CopyScheduler getCopyScheduler() {
+        return copyScheduler;
+    }
+
+    public LazyRegionLoader getLazyRegionLoader() {
+        return lazyRegionLoader;
+    }
+
+    public SourceSnapshotter getSourceSnapshotter() {
+        return sourceSnapshotter;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
 } 
\ No newline at end of file
@@ -1,9 +1,11 @@
 package com.example.designsandbox.commands;
 
 import com.example.designsandbox.DesignSandboxPlugin;
+import com.example.designsandbox.commands.subcommands.CancelCommand;
 import com.example.designsandbox.commands.subcommands.EnterCommand;
 import com.example.designsandbox.commands.subcommands.ExitCommand;
 import com.example.designsandbox.commands.subcommands.ResetCommand;
+import com.example.designsandbox.commands.subcommands.StatsCommand;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -14,6 +16,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class DesignCommand implements CommandExecutor, TabCompleter {
     private final DesignSandboxPlugin plugin;
@@ -23,12 +26,14 @@ public class DesignCommand implements CommandExecutor, TabCompleter {
     public DesignCommand(DesignSandboxPlugin plugin) {
         this.plugin = plugin;
         this.subCommands = new HashMap<>();
-        this.cooldowns = new HashMap<>();
+        this.cooldowns = new ConcurrentHashMap<>();
 
         // Register subcommands
         registerSubCommand(new EnterCommand(plugin));
         registerSubCommand(new ExitCommand(plugin));
         registerSubCommand(new ResetCommand(plugin));
+        registerSubCommand(new CancelCommand(plugin));
+        registerSubCommand(new StatsCommand(plugin));
     }
 
     @Override
@@ -140,11 +145,11 @@ public class DesignCommand implements CommandExecutor, TabCompleter {
 
     private long getCooldownTime(Player player, String subCommand) {
         String key = player.getUniqueId() + ":" + subCommand;
-        if (!cooldowns.containsKey(key)) {
+        Long lastUse = cooldowns.get(key);
+        if (lastUse == null) {
             return 0;
         }
 
-        long lastUse = cooldowns.get(key);
         int cooldownSeconds = plugin.getConfig().getInt("cooldown." + subCommand, 0);
         long cooldownExpiry = lastUse + (cooldownSeconds * 1000);
         long remaining = (cooldownExpiry - System.currentTimeMillis()) / 1000;
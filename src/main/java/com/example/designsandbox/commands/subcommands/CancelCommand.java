@@ -0,0 +1,46 @@
+package com.example.designsandbox.commands.subcommands;
+
+import com.example.designsandbox.DesignSandboxPlugin;
+import com.example.designsandbox.commands.SubCommand;
+import org.bukkit.entity.Player;
+
+public class CancelCommand implements SubCommand {
+    private final DesignSandboxPlugin plugin;
+
+    public CancelCommand(DesignSandboxPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public String getName() {
+        return "cancel";
+    }
+
+    @Override
+    public boolean execute(Player player, String[] args) {
+        if (!plugin.getWorldManager().cancelBuild(player)) {
+            player.sendMessage(plugin.getConfig().getString("messages.error.nothing-to-cancel",
+                "§cYou have no sandbox build waiting to start."));
+            return false;
+        }
+
+        String message = plugin.getConfig().getString("messages.build-cancelled", "Your sandbox build was cancelled.");
+        player.sendMessage(plugin.getConfig().getString("messages.prefix", "§8[§bDesign§8] §7") + message);
+        return true;
+    }
+
+    @Override
+    public String getPermission() {
+        return "designsandbox.use";
+    }
+
+    @Override
+    public String getUsage() {
+        return "/design cancel";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Cancel your sandbox build while it is waiting to start";
+    }
+}
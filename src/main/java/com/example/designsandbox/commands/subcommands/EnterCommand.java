@@ -2,6 +2,7 @@ package com.example.designsandbox.commands.subcommands;
 
 import com.example.designsandbox.DesignSandboxPlugin;
 import com.example.designsandbox.commands.SubCommand;
+import com.example.designsandbox.metrics.Metrics;
 import org.bukkit.GameMode;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -21,6 +22,8 @@ public class EnterCommand implements SubCommand {
 
     @Override
     public boolean execute(Player player, String[] args) {
+        long started = System.nanoTime();
+
         // Check if player is already in a sandbox world
         World currentWorld = player.getWorld();
         if (plugin.getWorldManager().isSandboxWorld(currentWorld)) {
@@ -37,19 +40,22 @@ public class EnterCommand implements SubCommand {
 
         // Create or load the sandbox world
         if (plugin.getWorldManager().worldExists(player)) {
-            // World exists, just load and teleport
-            if (!plugin.getWorldManager().loadWorld(player)) {
-                player.sendMessage(plugin.getConfig().getString("messages.error.world-load", 
-                    "§cFailed to load sandbox world."));
-                return false;
-            }
-            teleportToSandbox(player);
+            // World exists, load it (restoring it from cold storage if needed) and teleport
+            plugin.getWorldManager().loadWorld(player)
+                .thenAccept(success -> {
+                    if (success) {
+                        teleportToSandbox(player, started);
+                    } else {
+                        player.sendMessage(plugin.getConfig().getString("messages.error.world-load", 
+                            "§cFailed to load sandbox world."));
+                    }
+                });
         } else {
             // Create new world
             plugin.getWorldManager().createWorld(player, player.getLocation())
                 .thenAccept(success -> {
                     if (success) {
-                        teleportToSandbox(player);
+                        teleportToSandbox(player, started);
                     } else {
                         player.sendMessage(plugin.getConfig().getString("messages.error.world-creation", 
                             "§cFailed to create sandbox world."));
@@ -60,7 +66,25 @@ public class EnterCommand implements SubCommand {
         return true;
     }
 
-    private void teleportToSandbox(Player player) {
+    @Override
+    public String getPermission() {
+        return "designsandbox.use";
+    }
+
+    @Override
+    public String getUsage() {
+        return "/design enter";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Enter your design sandbox world";
+    }
+
+    /**
+     * @param started When the command was run, as System.nanoTime()
+     */
+    private void teleportToSandbox(Player player, long started) {
         // Get the sandbox world
         World sandboxWorld = plugin.getWorldManager().getWorld(player);
         if (sandboxWorld == null) {
@@ -69,22 +93,35 @@ public class EnterCommand implements SubCommand {
             return;
         }
 
-        // Set game mode to creative
-        player.setGameMode(GameMode.CREATIVE);
-
         // Teleport to the same relative position
         Location currentLoc = player.getLocation();
-        Location sandboxLoc = new Location(sandboxWorld,
+        Location relativeLoc = new Location(sandboxWorld,
             currentLoc.getX(),
             currentLoc.getY(),
             currentLoc.getZ(),
             currentLoc.getYaw(),
             currentLoc.getPitch()
         );
+        // The sandbox only holds the area it was built around
+        Location sandboxLoc = sandboxWorld.getWorldBorder().isInside(relativeLoc)
+            ? relativeLoc : sandboxWorld.getSpawnLocation();
 
         // Ensure the chunk is loaded
+        Metrics metrics = plugin.getMetrics();
+        long chunkRequested = System.nanoTime();
         sandboxWorld.getChunkAtAsync(sandboxLoc).thenAccept(chunk -> {
-            player.teleport(sandboxLoc);
+            metrics.recordSince(Metrics.Phase.CHUNK_LOAD, chunkRequested);
+            long teleportStarted = System.nanoTime();
+            // Held back while the regions around the spot are still being copied
+            if (!player.teleport(sandboxLoc)) {
+                player.sendMessage(plugin.getConfig().getString("messages.world-not-ready",
+                    "§eThat part of your sandbox is still being copied. Try /design enter again in a moment."));
+                return;
+            }
+            metrics.recordSince(Metrics.Phase.TELEPORT, teleportStarted);
+            // Only once the player is in the sandbox, a refused teleport leaves them in survival
+            player.setGameMode(GameMode.CREATIVE);
+            metrics.recordSince(Metrics.Phase.ENTER, started);
             player.sendMessage(plugin.getConfig().getString("messages.world-created", 
                 "Sandbox world created successfully!"));
         });
@@ -2,7 +2,10 @@ package com.example.designsandbox.commands.subcommands;
 
 import com.example.designsandbox.DesignSandboxPlugin;
 import com.example.designsandbox.commands.SubCommand;
+import com.example.designsandbox.metrics.Metrics;
 import com.example.designsandbox.world.WorldManager;
+import org.bukkit.GameMode;
+import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 
@@ -17,6 +20,8 @@ public class ResetCommand implements SubCommand {
 
     @Override
     public boolean execute(Player player, String[] args) {
+        long started = System.nanoTime();
+
         // Check if player is in a sandbox world
         World currentWorld = player.getWorld();
         if (!worldManager.isSandboxWorld(currentWorld)) {
@@ -30,10 +35,13 @@ public class ResetCommand implements SubCommand {
         String message = plugin.getConfig().getString("messages.reset", "Resetting your sandbox world...");
         player.sendMessage(plugin.getConfig().getString("messages.prefix", "§8[§bDesign§8] §7") + message);
 
-        // Reset the world
-        worldManager.resetWorld(player, player.getLocation())
+        // Reset the world, the player is moved out while it is unloaded
+        Location returnLocation = player.getLocation();
+        worldManager.resetWorld(player, returnLocation)
             .thenAccept(success -> {
                 if (success) {
+                    returnToSandbox(player, returnLocation);
+                    plugin.getMetrics().recordSince(Metrics.Phase.RESET, started);
                     String successMessage = plugin.getConfig().getString("messages.world-reset", 
                         "Your sandbox has been reset to match the current survival world.");
                     player.sendMessage(plugin.getConfig().getString("messages.prefix", "§8[§bDesign§8] §7") + successMessage);
@@ -48,6 +56,28 @@ public class ResetCommand implements SubCommand {
         return true; // Return true since we've started the reset process
     }
 
+    /**
+     * Sends the player back to where they were in the freshly reset sandbox
+     */
+    private void returnToSandbox(Player player, Location location) {
+        World sandboxWorld = worldManager.getWorld(player);
+        if (sandboxWorld == null || !player.isOnline()) {
+            return;
+        }
+
+        Location target = location.clone();
+        target.setWorld(sandboxWorld);
+        long teleportStarted = System.nanoTime();
+        // Held back while the regions around the spot are still being copied
+        if (!player.teleport(target)) {
+            player.sendMessage(plugin.getConfig().getString("messages.world-not-ready",
+                "§eThat part of your sandbox is still being copied. Try /design enter again in a moment."));
+            return;
+        }
+        plugin.getMetrics().recordSince(Metrics.Phase.TELEPORT, teleportStarted);
+        player.setGameMode(GameMode.CREATIVE);
+    }
+
     @Override
     public String getName() {
         return "reset";
@@ -0,0 +1,68 @@
+package com.example.designsandbox.commands.subcommands;
+
+import com.example.designsandbox.DesignSandboxPlugin;
+import com.example.designsandbox.commands.SubCommand;
+import com.example.designsandbox.metrics.LatencyHistogram;
+import com.example.designsandbox.metrics.Metrics;
+import com.example.designsandbox.world.IoThrottle;
+import org.bukkit.entity.Player;
+
+public class StatsCommand implements SubCommand {
+    private final DesignSandboxPlugin plugin;
+
+    public StatsCommand(DesignSandboxPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    @Override
+    public String getName() {
+        return "stats";
+    }
+
+    @Override
+    public boolean execute(Player player, String[] args) {
+        Metrics metrics = plugin.getMetrics();
+        player.sendMessage("§6Design-Sandbox stats §7(count, p50, p95, max):");
+
+        for (Metrics.Phase phase : Metrics.Phase.values()) {
+            LatencyHistogram histogram = metrics.getHistogram(phase);
+            if (histogram.getCount() == 0) continue;
+            player.sendMessage(String.format("§f%s §7%d, %s, %s, %s", phase.getLabel(), histogram.getCount(),
+                formatMillis(histogram.getPercentileMillis(0.5)), formatMillis(histogram.getPercentileMillis(0.95)),
+                formatMillis(histogram.getMaxNanos() / 1_000_000)));
+        }
+
+        player.sendMessage(String.format("§fCopied §7%.1f MB in %d files, %d builds finished, %d failed",
+            metrics.getBytesCopied() / (1024.0 * 1024.0), metrics.getFilesCopied(),
+            metrics.getBuildsSucceeded(), metrics.getBuildsFailed()));
+        player.sendMessage(String.format("§fBuilds §7%d running, %d queued; §f%d §7sandboxes loaded",
+            plugin.getCopyScheduler().getRunningBuilds(), plugin.getCopyScheduler().getQueueSize(),
+            metrics.getLoadedSandboxes()));
+        IoThrottle throttle = plugin.getCopyScheduler().getThrottle();
+        if (throttle.isPaused()) {
+            player.sendMessage("§fCopy rate §7paused, the server is busy");
+        } else if (throttle.getBytesPerSecond() > 0) {
+            player.sendMessage(String.format("§fCopy rate §7%.1f MB/s", throttle.getBytesPerSecond() / (1024.0 * 1024.0)));
+        }
+        return true;
+    }
+
+    private static String formatMillis(long millis) {
+        return millis < 1000 ? millis + "ms" : String.format("%.1fs", millis / 1000.0);
+    }
+
+    @Override
+    public String getPermission() {
+        return "designsandbox.admin";
+    }
+
+    @Override
+    public String getUsage() {
+        return "/design stats";
+    }
+
+    @Override
+    public String getDescription() {
+        return "Show sandbox timings and copy statistics";
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.designsandbox.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed buckets from 1 ms to 5 minutes.
+ *
+ * Recording only touches atomics, so it is safe from the main thread and the copy threads at
+ * once. Percentiles are reported as the upper bound of the bucket they fall into.
+ */
+public class LatencyHistogram {
+    /** Bucket upper bounds in milliseconds; one more bucket holds everything above */
+    static final long[] BOUNDS_MILLIS = {
+        1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000, 60000, 120000, 300000
+    };
+
+    private final AtomicLongArray buckets;
+    private final LongAdder sumNanos;
+    private final AtomicLong maxNanos;
+
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BOUNDS_MILLIS.length + 1);
+        this.sumNanos = new LongAdder();
+        this.maxNanos = new AtomicLong();
+    }
+
+    /**
+     * Records one measurement
+     */
+    public void record(long nanos) {
+        long millis = Math.max(0, nanos) / 1_000_000;
+        int bucket = 0;
+        while (bucket < BOUNDS_MILLIS.length && millis >= BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        sumNanos.add(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Gets the number of measurements
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            count += buckets.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Gets the total of all measurements in nanoseconds
+     */
+    public long getSumNanos() {
+        return sumNanos.sum();
+    }
+
+    /**
+     * Gets the longest measurement in nanoseconds
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Gets the number of measurements in a bucket
+     */
+    long getBucket(int bucket) {
+        return buckets.get(bucket);
+    }
+
+    /**
+     * Gets an upper bound for a percentile in milliseconds, or the maximum for the top bucket
+     * @param percentile Between 0 and 1
+     */
+    public long getPercentileMillis(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = (long) Math.ceil(percentile * count);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(BOUNDS_MILLIS[i], getMaxNanos() / 1_000_000 + 1);
+            }
+        }
+        return getMaxNanos() / 1_000_000;
+    }
+}
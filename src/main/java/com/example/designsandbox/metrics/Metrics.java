@@ -0,0 +1,211 @@
+package com.example.designsandbox.metrics;
+
+import com.example.designsandbox.DesignSandboxPlugin;
+import com.example.designsandbox.world.IoThrottle;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings and counters for entering, resetting and building sandboxes.
+ *
+ * Every phase has a {@link LatencyHistogram}; bytes and files written by copies and finished
+ * builds are counted. Recording is lock-free and may happen on any thread. The values are shown
+ * by /design stats and written every metrics.write-interval seconds to metrics.prometheus-file
+ * in the Prometheus text format, for the node exporter's textfile collector.
+ */
+public class Metrics {
+    /**
+     * The measured steps. Enter and reset cover a whole command, the others are parts of it.
+     */
+    public enum Phase {
+        ENTER,
+        RESET,
+        /** Waiting for the source world to be saved */
+        SAVE,
+        /** Waiting for a free build slot */
+        QUEUE,
+        COPY,
+        /** Unpacking an archived sandbox */
+        RESTORE,
+        /** Adding or loading the world in Multiverse */
+        REGISTER,
+        CHUNK_LOAD,
+        TELEPORT;
+
+        public String getLabel() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final DesignSandboxPlugin plugin;
+    private final Map<Phase, LatencyHistogram> histograms;
+    private final LongAdder bytesCopied;
+    private final LongAdder filesCopied;
+    private final LongAdder buildsSucceeded;
+    private final LongAdder buildsFailed;
+
+    public Metrics(DesignSandboxPlugin plugin) {
+        this.plugin = plugin;
+        this.histograms = new EnumMap<>(Phase.class);
+        for (Phase phase : Phase.values()) {
+            histograms.put(phase, new LatencyHistogram());
+        }
+        this.bytesCopied = new LongAdder();
+        this.filesCopied = new LongAdder();
+        this.buildsSucceeded = new LongAdder();
+        this.buildsFailed = new LongAdder();
+    }
+
+    /**
+     * Starts writing the Prometheus file, if one is configured
+     */
+    public void start() {
+        String fileName = plugin.getConfig().getString("metrics.prometheus-file", "metrics.prom");
+        if (fileName == null || fileName.isEmpty()) {
+            return;
+        }
+
+        Path file = new File(plugin.getDataFolder(), fileName).toPath();
+        long interval = Math.max(1, plugin.getConfig().getLong("metrics.write-interval", 30)) * 20;
+        plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+            // Gauges read world state, so the text is put together on the main thread
+            String text = toPrometheus();
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> write(file, text));
+        }, interval, interval);
+    }
+
+    /**
+     * Records how long a phase took
+     */
+    public void record(Phase phase, long nanos) {
+        histograms.get(phase).record(nanos);
+    }
+
+    /**
+     * Records a phase that started at a System.nanoTime() value
+     */
+    public void recordSince(Phase phase, long startNanos) {
+        record(phase, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Counts a file written by a copy
+     * @param bytes The bytes written, 0 for reflinks
+     */
+    public void recordCopy(long bytes) {
+        filesCopied.increment();
+        bytesCopied.add(bytes);
+    }
+
+    /**
+     * Counts a finished build
+     */
+    public void recordBuild(boolean success) {
+        (success ? buildsSucceeded : buildsFailed).increment();
+    }
+
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms.get(phase);
+    }
+
+    public long getBytesCopied() {
+        return bytesCopied.sum();
+    }
+
+    public long getFilesCopied() {
+        return filesCopied.sum();
+    }
+
+    public long getBuildsSucceeded() {
+        return buildsSucceeded.sum();
+    }
+
+    public long getBuildsFailed() {
+        return buildsFailed.sum();
+    }
+
+    /**
+     * Counts the loaded sandbox worlds; must be called on the main thread
+     */
+    public int getLoadedSandboxes() {
+        int loaded = 0;
+        for (World world : Bukkit.getWorlds()) {
+            if (plugin.getWorldManager().isSandboxWorld(world)) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text format; must be called on the main thread
+     */
+    public String toPrometheus() {
+        StringBuilder out = new StringBuilder();
+        out.append("# HELP designsandbox_phase_seconds Time spent entering, resetting and building sandboxes, by phase\n");
+        out.append("# TYPE designsandbox_phase_seconds histogram\n");
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = histograms.get(phase);
+            String label = "phase=\"" + phase.getLabel() + "\"";
+            long cumulative = 0;
+            for (int i = 0; i < LatencyHistogram.BOUNDS_MILLIS.length; i++) {
+                cumulative += histogram.getBucket(i);
+                out.append("designsandbox_phase_seconds_bucket{").append(label).append(",le=\"")
+                    .append(LatencyHistogram.BOUNDS_MILLIS[i] / 1000.0).append("\"} ").append(cumulative).append('\n');
+            }
+            cumulative += histogram.getBucket(LatencyHistogram.BOUNDS_MILLIS.length);
+            out.append("designsandbox_phase_seconds_bucket{").append(label).append(",le=\"+Inf\"} ").append(cumulative).append('\n');
+            out.append("designsandbox_phase_seconds_sum{").append(label).append("} ").append(histogram.getSumNanos() / 1e9).append('\n');
+            out.append("designsandbox_phase_seconds_count{").append(label).append("} ").append(cumulative).append('\n');
+        }
+
+        appendMetric(out, "designsandbox_copied_bytes_total", "counter", "Bytes written by sandbox copies", getBytesCopied());
+        appendMetric(out, "designsandbox_copied_files_total", "counter", "Files written by sandbox copies", getFilesCopied());
+        out.append("# HELP designsandbox_builds_total Finished sandbox builds\n");
+        out.append("# TYPE designsandbox_builds_total counter\n");
+        out.append("designsandbox_builds_total{result=\"success\"} ").append(getBuildsSucceeded()).append('\n');
+        out.append("designsandbox_builds_total{result=\"failure\"} ").append(getBuildsFailed()).append('\n');
+        appendMetric(out, "designsandbox_build_queue_depth", "gauge", "Builds waiting for a slot",
+            plugin.getCopyScheduler().getQueueSize());
+        appendMetric(out, "designsandbox_running_builds", "gauge", "Builds currently copying",
+            plugin.getCopyScheduler().getRunningBuilds());
+        IoThrottle throttle = plugin.getCopyScheduler().getThrottle();
+        appendMetric(out, "designsandbox_copy_rate_bytes", "gauge", "Current copy rate limit in bytes per second, 0 for unlimited",
+            (long) Math.max(0, throttle.getBytesPerSecond()));
+        appendMetric(out, "designsandbox_copies_paused", "gauge", "1 while copies are paused for a busy server",
+            throttle.isPaused() ? 1 : 0);
+        appendMetric(out, "designsandbox_loaded_sandboxes", "gauge", "Loaded sandbox worlds", getLoadedSandboxes());
+        return out.toString();
+    }
+
+    private static void appendMetric(StringBuilder out, String name, String type, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Replaces the metrics file in one step, so the collector never reads a partial file
+     */
+    private void write(Path file, String text) {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.write(temporary, text.getBytes(StandardCharsets.UTF_8));
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.designsandbox.metrics;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.designsandbox.RegionCopy")
+@Label("Region Copy")
+@Description("A region, entities or poi file written into a sandbox")
+public class RegionCopyEvent extends SandboxEvent {
+    @Label("File")
+    public String file;
+
+    @Label("Bytes Written")
+    @Description("0 for copy-on-write reflinks")
+    @DataAmount(DataAmount.BYTES)
+    public long bytes;
+}
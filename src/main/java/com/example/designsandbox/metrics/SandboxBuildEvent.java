@@ -0,0 +1,20 @@
+package com.example.designsandbox.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.designsandbox.SandboxBuild")
+@Label("Sandbox Build")
+@Description("Copying a sandbox from its source world, from leaving the queue until all regions are written")
+public class SandboxBuildEvent extends SandboxEvent {
+    @Label("Regions")
+    public int regions;
+
+    @Label("Resumed")
+    @Description("Whether the build continued one interrupted by a restart")
+    public boolean resumed;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,31 @@
+package com.example.designsandbox.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+
+import java.util.UUID;
+
+/**
+ * Base of the Java Flight Recorder events of the plugin, which show sandbox work next to GC
+ * pauses and ticks in a server recording.
+ *
+ * Events are created and begun unconditionally, which JFR makes nearly free; their fields are
+ * only filled in when {@link #shouldCommit()} says a recording wants them.
+ */
+@Category("Design Sandbox")
+public abstract class SandboxEvent extends Event {
+    @Label("World")
+    private String world;
+
+    @Label("Player")
+    private String player;
+
+    /**
+     * Sets the sandbox world and its owner, who may be unknown
+     */
+    public void setSandbox(String world, UUID player) {
+        this.world = world;
+        this.player = player != null ? player.toString() : null;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.designsandbox.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.designsandbox.SourceSave")
+@Label("Source Save")
+@Description("Waiting for the area of a sandbox build to be saved in the source world")
+public class SourceSaveEvent extends SandboxEvent {
+    @Label("Source World")
+    public String sourceWorld;
+}
@@ -0,0 +1,13 @@
+package com.example.designsandbox.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.designsandbox.WorldDelete")
+@Label("Sandbox Delete")
+@Description("Deleting a sandbox folder from the trash in the background")
+public class WorldDeleteEvent extends SandboxEvent {
+    @Label("Files")
+    public long files;
+}
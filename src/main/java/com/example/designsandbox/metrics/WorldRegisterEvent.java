@@ -0,0 +1,17 @@
+package com.example.designsandbox.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.designsandbox.WorldRegister")
+@Label("Sandbox Register")
+@Description("Adding a sandbox world to Multiverse or loading it, on the main thread")
+public class WorldRegisterEvent extends SandboxEvent {
+    @Label("Added")
+    @Description("Whether the world was new to Multiverse")
+    public boolean added;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,16 @@
+package com.example.designsandbox.metrics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.example.designsandbox.WorldUnload")
+@Label("Sandbox Unload")
+@Description("Unloading a sandbox world, on the main thread")
+public class WorldUnloadEvent extends SandboxEvent {
+    @Label("Saved")
+    public boolean saved;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
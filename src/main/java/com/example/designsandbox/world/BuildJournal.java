@@ -0,0 +1,136 @@
+package com.example.designsandbox.world;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * On-disk record of the regions a sandbox build has finished (build.journal in the sandbox
+ * folder).
+ *
+ * Each finished region is appended as a line "r.X.Z.mca hash" and synced, where the hash is the
+ * RegionFile.contentHash of the written file (0 if the build left no file). A region that has to
+ * be copied again is appended as "r.X.Z.mca -", which drops it from the finished regions. The
+ * journal is deleted when the build is done, so a journal found in a sandbox folder means its
+ * build was interrupted, or is a lazy build still open. Resuming keeps every finished region as it
+ * is, since the player or the server may have changed it since, and copies only the rest again.
+ */
+public class BuildJournal {
+    public static final String FILE_NAME = "build.journal";
+    private static final String INVALID = "-";
+
+    private final Path file;
+    private final Map<String, Long> completed;
+    private final boolean resumed;
+    private FileChannel channel;
+
+    public BuildJournal(File worldFolder) throws IOException {
+        this.file = new File(worldFolder, FILE_NAME).toPath();
+        this.completed = new HashMap<>();
+        this.resumed = Files.isRegularFile(file);
+        if (resumed) {
+            load();
+        }
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Checks if a sandbox folder holds an interrupted build
+     */
+    public static boolean exists(File worldFolder) {
+        return new File(worldFolder, FILE_NAME).isFile();
+    }
+
+    /**
+     * Checks if this journal continues an interrupted build
+     */
+    public boolean isResumed() {
+        return resumed;
+    }
+
+    /**
+     * Checks if an earlier run finished a region, and did not mark it to be copied again
+     */
+    public boolean isCompleted(String regionName) {
+        return completed.containsKey(regionName);
+    }
+
+    /**
+     * Gets the hash an earlier run recorded for a region, or null if it did not finish the region
+     */
+    public Long getCompletedHash(String regionName) {
+        return completed.get(regionName);
+    }
+
+    /**
+     * Records a finished region with the content hash of its file
+     */
+    public synchronized void record(String regionName, long hash) throws IOException {
+        if (channel == null) {
+            return;
+        }
+        byte[] line = (regionName + " " + hash + "\n").getBytes(StandardCharsets.UTF_8);
+        channel.write(ByteBuffer.wrap(line));
+        channel.force(false);
+    }
+
+    /**
+     * Marks a region as not finished, so resuming the build copies it again
+     */
+    public synchronized void invalidate(String regionName) throws IOException {
+        if (channel == null) {
+            return;
+        }
+        byte[] line = (regionName + " " + INVALID + "\n").getBytes(StandardCharsets.UTF_8);
+        channel.write(ByteBuffer.wrap(line));
+        channel.force(false);
+    }
+
+    /**
+     * Closes the journal, keeping it so the build can be resumed
+     */
+    public synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing left to write
+        }
+        channel = null;
+    }
+
+    /**
+     * Closes and deletes the journal once the build is done
+     */
+    public synchronized void finish() throws IOException {
+        close();
+        Files.deleteIfExists(file);
+    }
+
+    private void load() throws IOException {
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            // The last line may be cut short by the crash
+            String[] parts = line.split(" ");
+            if (parts.length != 2) continue;
+            if (parts[1].equals(INVALID)) {
+                completed.remove(parts[0]);
+                continue;
+            }
+            try {
+                completed.put(parts[0], Long.parseLong(parts[1]));
+            } catch (NumberFormatException e) {
+                // Ignore the torn line
+            }
+        }
+    }
+}
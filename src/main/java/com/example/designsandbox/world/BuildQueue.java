@@ -0,0 +1,155 @@
+package com.example.designsandbox.world;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * The builds waiting for a slot in the {@link CopyScheduler}.
+ *
+ * Updates are taken first, in the order they were added. Fresh builds are taken from their
+ * owners in turn, weighted round-robin: the owner at the front of the line starts builds until
+ * it has started as many as the weight of its next build, then goes to the back. Not thread-safe,
+ * the scheduler guards it with its own lock.
+ */
+class BuildQueue<T> {
+    private final Function<T, String> owner;
+    private final ToIntFunction<T> weight;
+    private final Predicate<T> update;
+    /** Updates of existing sandboxes, started before any fresh build */
+    private final Deque<T> updates;
+    /** Fresh builds by owner */
+    private final Map<String, Deque<T>> builds;
+    /** Owners with queued builds in turn order; the first one is taking its turn */
+    private final Deque<String> turns;
+    private int servedThisTurn;
+
+    BuildQueue(Function<T, String> owner, ToIntFunction<T> weight, Predicate<T> update) {
+        this.owner = owner;
+        this.weight = weight;
+        this.update = update;
+        this.updates = new ArrayDeque<>();
+        this.builds = new HashMap<>();
+        this.turns = new ArrayDeque<>();
+    }
+
+    /**
+     * Copies a queue, so taking builds from the copy leaves the original as it is
+     */
+    private BuildQueue(BuildQueue<T> queue) {
+        this(queue.owner, queue.weight, queue.update);
+        updates.addAll(queue.updates);
+        queue.builds.forEach((key, queued) -> builds.put(key, new ArrayDeque<>(queued)));
+        turns.addAll(queue.turns);
+        servedThisTurn = queue.servedThisTurn;
+    }
+
+    /**
+     * Adds a build to the end of its owner's queue
+     */
+    void add(T task) {
+        if (update.test(task)) {
+            updates.addLast(task);
+            return;
+        }
+
+        String key = owner.apply(task);
+        Deque<T> queued = builds.computeIfAbsent(key, k -> new ArrayDeque<>());
+        if (queued.isEmpty()) {
+            turns.addLast(key);
+        }
+        queued.addLast(task);
+    }
+
+    /**
+     * Removes a build from the queue
+     * @return false if it was not waiting
+     */
+    boolean remove(T task) {
+        if (updates.remove(task)) {
+            return true;
+        }
+
+        String key = owner.apply(task);
+        Deque<T> queued = builds.get(key);
+        if (queued == null || !queued.remove(task)) {
+            return false;
+        }
+        if (queued.isEmpty()) {
+            builds.remove(key);
+            if (key.equals(turns.peekFirst())) {
+                servedThisTurn = 0;
+            }
+            turns.remove(key);
+        }
+        return true;
+    }
+
+    /**
+     * Takes the next build to start, or null if the queue is empty
+     */
+    T poll() {
+        T next = updates.pollFirst();
+        if (next != null) {
+            return next;
+        }
+
+        String key = turns.peekFirst();
+        if (key == null) {
+            return null;
+        }
+        Deque<T> queued = builds.get(key);
+        next = queued.pollFirst();
+        servedThisTurn++;
+        if (queued.isEmpty()) {
+            builds.remove(key);
+            turns.pollFirst();
+            servedThisTurn = 0;
+        } else if (servedThisTurn >= weight.applyAsInt(queued.peekFirst())) {
+            // Turn over, the owner goes to the back of the line
+            turns.addLast(turns.pollFirst());
+            servedThisTurn = 0;
+        }
+        return next;
+    }
+
+    /**
+     * Lists the builds in the order they would start if nothing else was added
+     */
+    List<T> getOrder() {
+        BuildQueue<T> copy = new BuildQueue<>(this);
+        List<T> order = new ArrayList<>(size());
+        T next;
+        while ((next = copy.poll()) != null) {
+            order.add(next);
+        }
+        return order;
+    }
+
+    /**
+     * Gets the number of waiting builds
+     */
+    int size() {
+        int size = updates.size();
+        for (Deque<T> queued : builds.values()) {
+            size += queued.size();
+        }
+        return size;
+    }
+
+    /**
+     * Drops every waiting build
+     */
+    void clear() {
+        updates.clear();
+        builds.clear();
+        turns.clear();
+        servedThisTurn = 0;
+    }
+}
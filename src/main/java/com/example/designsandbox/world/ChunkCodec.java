@@ -0,0 +1,93 @@
+package com.example.designsandbox.world;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compresses and decompresses stored chunks: a compression type byte followed by the data.
+ */
+public final class ChunkCodec {
+    public static final int GZIP = 1;
+    public static final int ZLIB = 2;
+    public static final int NONE = 3;
+    public static final int LZ4 = 4;
+
+    /** Flag on the type byte of chunks stored in an external c.X.Z.mcc file */
+    private static final int EXTERNAL_FLAG = 0x80;
+
+    private ChunkCodec() {
+    }
+
+    /**
+     * Checks if a stored chunk can be decoded here. External chunks and unknown compression types
+     * are passed through untouched.
+     */
+    public static boolean canDecode(byte[] chunk) {
+        if (chunk.length == 0 || (chunk[0] & EXTERNAL_FLAG) != 0) {
+            return false;
+        }
+        return canEncode(chunk[0]);
+    }
+
+    /**
+     * Checks if chunks can be compressed with a type
+     */
+    public static boolean canEncode(int type) {
+        return type == GZIP || type == ZLIB || type == NONE || type == LZ4;
+    }
+
+    /**
+     * Gets the uncompressed NBT of a stored chunk
+     */
+    public static byte[] decode(byte[] chunk) throws IOException {
+        InputStream data = new ByteArrayInputStream(chunk, 1, chunk.length - 1);
+        switch (chunk[0]) {
+            case GZIP: data = new GZIPInputStream(data); break;
+            case ZLIB: data = new InflaterInputStream(data); break;
+            case NONE: return Arrays.copyOfRange(chunk, 1, chunk.length);
+            case LZ4: return Lz4Block.decompress(chunk, 1, chunk.length - 1);
+            default: throw new IOException("Unsupported chunk compression " + chunk[0]);
+        }
+        try (InputStream in = data) {
+            return in.readAllBytes();
+        }
+    }
+
+    /**
+     * Compresses chunk NBT into its stored form
+     */
+    public static byte[] encode(int type, byte[] nbt) throws IOException {
+        ByteArrayOutputStream stored = new ByteArrayOutputStream(nbt.length / 2 + 16);
+        stored.write(type);
+        OutputStream out;
+        switch (type) {
+            case GZIP: out = new GZIPOutputStream(stored); break;
+            case ZLIB: out = new DeflaterOutputStream(stored); break;
+            case NONE: out = stored; break;
+            case LZ4: stored.write(Lz4Block.compress(nbt)); return stored.toByteArray();
+            default: throw new IOException("Unsupported chunk compression " + type);
+        }
+        try (OutputStream compressed = out) {
+            compressed.write(nbt);
+        }
+        return stored.toByteArray();
+    }
+
+    /**
+     * Creates a transform storing every chunk it can decode with another compression type
+     */
+    public static RegionFile.ChunkTransform recompress(int type) {
+        if (!canEncode(type)) {
+            throw new IllegalArgumentException("Unsupported chunk compression " + type);
+        }
+        return chunk -> !canDecode(chunk) || chunk[0] == type ? chunk : encode(type, decode(chunk));
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.designsandbox.world;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes entities and block entities from chunks while they are copied, so sandboxes do not
+ * tick the farms, mobs and hoppers of the survival world.
+ *
+ * Entity files lose the entities listed in world.strip.entities.remove ("*" for all) that are
+ * not listed in world.strip.entities.keep; passengers go with their vehicle. Region files lose
+ * the block entities listed in world.strip.block-entities. The blocks stay, and the server gives
+ * them empty block entities when the chunk loads, so a spawner has nothing to spawn and a hopper
+ * nothing to move. Chunks with nothing to remove are passed through as they are.
+ */
+public class ChunkStripper implements RegionFile.ChunkTransform {
+    private final String listName;
+    private final Set<String> remove;
+    private final Set<String> keep;
+    private final boolean removeAll;
+
+    private ChunkStripper(String listName, Set<String> remove, Set<String> keep) {
+        this.listName = listName;
+        this.removeAll = remove.remove("*");
+        this.remove = remove;
+        this.keep = keep;
+    }
+
+    /**
+     * Creates the stripper for entity files
+     * @return The stripper, or null if no entities are stripped
+     */
+    public static ChunkStripper forEntities(ConfigurationSection config) {
+        if (!config.getBoolean("world.strip.enabled", false)) {
+            return null;
+        }
+        Set<String> remove = ids(config.getStringList("world.strip.entities.remove"));
+        if (remove.isEmpty()) {
+            return null;
+        }
+        return new ChunkStripper("Entities", remove, ids(config.getStringList("world.strip.entities.keep")));
+    }
+
+    /**
+     * Creates the stripper for block entities in region files
+     * @return The stripper, or null if no block entities are stripped
+     */
+    public static ChunkStripper forBlockEntities(ConfigurationSection config) {
+        if (!config.getBoolean("world.strip.enabled", false)) {
+            return null;
+        }
+        Set<String> remove = ids(config.getStringList("world.strip.block-entities"));
+        if (remove.isEmpty()) {
+            return null;
+        }
+        return new ChunkStripper("block_entities", remove, new HashSet<>());
+    }
+
+    @Override
+    public byte[] apply(byte[] chunk) throws IOException {
+        if (!ChunkCodec.canDecode(chunk)) {
+            return chunk;
+        }
+
+        Map<String, Object> root = Nbt.readRoot(new DataInputStream(new ByteArrayInputStream(ChunkCodec.decode(chunk))));
+        Object list = root.get(listName);
+        if (!(list instanceof Nbt.NbtList) || !((Nbt.NbtList) list).getValues().removeIf(this::shouldRemove)) {
+            return chunk;
+        }
+
+        ByteArrayOutputStream nbt = new ByteArrayOutputStream();
+        Nbt.writeRoot(new DataOutputStream(nbt), root);
+        return ChunkCodec.encode(chunk[0], nbt.toByteArray());
+    }
+
+    private boolean shouldRemove(Object tag) {
+        if (!(tag instanceof Map)) {
+            return false;
+        }
+        Object id = ((Map<?, ?>) tag).get("id");
+        if (!(id instanceof String)) {
+            return false;
+        }
+        String normalized = normalize((String) id);
+        return (removeAll || remove.contains(normalized)) && !keep.contains(normalized);
+    }
+
+    private static Set<String> ids(List<String> values) {
+        Set<String> ids = new HashSet<>();
+        for (String value : values) {
+            ids.add(value.equals("*") ? value : normalize(value));
+        }
+        return ids;
+    }
+
+    private static String normalize(String id) {
+        String lower = id.toLowerCase(Locale.ROOT);
+        return lower.indexOf(':') >= 0 ? lower : "minecraft:" + lower;
+    }
+}
@@ -0,0 +1,474 @@
+package com.example.designsandbox.world;
+
+import com.example.designsandbox.DesignSandboxPlugin;
+import com.onarandombox.MultiverseCore.api.MVWorldManager;
+import org.bukkit.Bukkit;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Packs sandboxes nobody has entered for a while into one compressed archive per world.
+ *
+ * A sandbox whose level.dat has not been written for maintenance.cold-storage.days-inactive days
+ * is archived to designs/cold/world.dsa and its folder is removed. Every file is compressed on
+ * its own and listed in an index at the end of the archive, so files are compressed and
+ * restored in parallel on the copy threads. Sandboxes are restored the next time their owner
+ * enters, so files are compressed with {@link Lz4Block}, which unpacks several times faster than
+ * Deflate; archives of version 1 were deflated and can still be restored.
+ *
+ * Archive layout: a header (magic, version), the compressed files, the index (count, then path,
+ * offset, compressed length, length and modification time per file) and a footer (index offset,
+ * magic).
+ *
+ * An archive is dropped if the sandbox is loaded or reset while it is written, or if any of its
+ * files changed in the meantime, so edits are never replaced by an older archive.
+ *
+ * The methods that change state must be called on the main thread.
+ */
+public class ColdStorage {
+    private static final int MAGIC = 0x44534341; // "DSCA"
+    private static final int VERSION = 2;
+    private static final int VERSION_DEFLATE = 1;
+    private static final String EXTENSION = ".dsa";
+
+    private final DesignSandboxPlugin plugin;
+    private final MVWorldManager mvWorldManager;
+    private final File folder;
+    private final long inactiveMillis;
+    private final Map<String, CompletableFuture<Boolean>> busy;
+    /** Worlds being archived */
+    private final Set<String> archiving;
+    /** Worlds whose running archive was abandoned because they are in use again */
+    private final Set<String> abandoned;
+
+    public ColdStorage(DesignSandboxPlugin plugin, MVWorldManager mvWorldManager) {
+        this.plugin = plugin;
+        this.mvWorldManager = mvWorldManager;
+        this.folder = new File(new File(plugin.getServer().getWorldContainer(),
+            plugin.getConfig().getString("world.directory", "designs")), "cold");
+        this.inactiveMillis = plugin.getConfig().getLong("maintenance.cold-storage.days-inactive", 14) * 86_400_000L;
+        this.busy = new HashMap<>();
+        this.archiving = new HashSet<>();
+        this.abandoned = new HashSet<>();
+        folder.mkdirs();
+
+        // Drop partial archives left by a crash
+        File[] leftovers = folder.listFiles((dir, name) -> name.endsWith(".tmp"));
+        if (leftovers != null) {
+            for (File leftover : leftovers) {
+                leftover.delete();
+            }
+        }
+    }
+
+    /**
+     * Starts the periodic check for inactive sandboxes
+     */
+    public void start() {
+        long interval = Math.max(1, plugin.getConfig().getLong("maintenance.cold-storage.check-interval", 6)) * 72_000L;
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                sweep();
+            }
+        }.runTaskTimer(plugin, interval, interval);
+    }
+
+    /**
+     * Abandons a running archive of a sandbox that is about to be used, so the archive does not
+     * replace the world once it is written
+     */
+    public void cancelArchive(String worldName) {
+        if (archiving.contains(worldName)) {
+            abandoned.add(worldName);
+        }
+    }
+
+    /**
+     * Checks if a sandbox is in cold storage
+     */
+    public boolean isArchived(String worldName) {
+        return archiveFile(worldName).isFile();
+    }
+
+    /**
+     * Unpacks an archived sandbox into its world folder and deletes the archive. The world is
+     * not registered with Multiverse.
+     * @return A future completed on the main thread
+     */
+    public CompletableFuture<Boolean> restore(String worldName) {
+        CompletableFuture<Boolean> running = busy.get(worldName);
+        if (running != null) {
+            // An archive in progress is abandoned once it finds the world in use again
+            return running.thenCompose(ignored -> isArchived(worldName)
+                ? restore(worldName) : CompletableFuture.completedFuture(true));
+        }
+
+        File archive = archiveFile(worldName);
+        File worldFolder = new File(plugin.getServer().getWorldContainer(), worldName);
+        ExecutorService executor = plugin.getCopyScheduler().getRegionExecutor();
+        Executor mainThread = plugin.getServer().getScheduler().getMainThreadExecutor(plugin);
+        long started = System.currentTimeMillis();
+
+        CompletableFuture<Boolean> restore = CompletableFuture.supplyAsync(() -> {
+            try {
+                return readIndex(archive.toPath());
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor).thenCompose(entries -> {
+            List<CompletableFuture<Void>> files = new ArrayList<>();
+            for (Entry entry : entries) {
+                files.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        extract(archive.toPath(), entry, worldFolder.toPath());
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+            return CompletableFuture.allOf(files.toArray(CompletableFuture<?>[]::new));
+        }).handleAsync((ignored, error) -> {
+            busy.remove(worldName);
+            if (error != null) {
+                plugin.getLogger().severe("Failed to restore sandbox " + worldName + " from cold storage: "
+                    + describe(error));
+                return false;
+            }
+            archive.delete();
+            plugin.getLogger().info("Restored " + worldName + " from cold storage in "
+                + (System.currentTimeMillis() - started) + "ms");
+            return true;
+        }, mainThread);
+
+        busy.put(worldName, restore);
+        return restore;
+    }
+
+    /**
+     * Archives every unloaded sandbox that has been inactive long enough, one at a time
+     */
+    private void sweep() {
+        String prefix = plugin.getConfig().getString("world.name-prefix", "design_");
+        long now = System.currentTimeMillis();
+        List<String> candidates = new ArrayList<>();
+        for (String worldName : mvWorldManager.getUnloadedWorlds()) {
+            if (!worldName.startsWith(prefix) || busy.containsKey(worldName)) continue;
+
+            File levelDat = new File(new File(plugin.getServer().getWorldContainer(), worldName), "level.dat");
+            if (levelDat.isFile() && now - levelDat.lastModified() >= inactiveMillis) {
+                candidates.add(worldName);
+            }
+        }
+        archiveNext(candidates.iterator());
+    }
+
+    private void archiveNext(Iterator<String> candidates) {
+        while (candidates.hasNext()) {
+            String worldName = candidates.next();
+            if (!isIdle(worldName)) continue;
+
+            CompletableFuture<Boolean> archive = archive(worldName);
+            busy.put(worldName, archive);
+            archive.thenRun(() -> archiveNext(candidates));
+            return;
+        }
+    }
+
+    /**
+     * Checks on the main thread that nothing is using a sandbox
+     */
+    private boolean isIdle(String worldName) {
+        return Bukkit.getWorld(worldName) == null
+            && !plugin.getWorldManager().isBusy(worldName)
+            && !plugin.getWorldManager().isPooledWorld(worldName);
+    }
+
+    /**
+     * Writes a sandbox to its archive, then removes the world from Multiverse and deletes its folder
+     * @return A future completed on the main thread
+     */
+    private CompletableFuture<Boolean> archive(String worldName) {
+        File worldFolder = new File(plugin.getServer().getWorldContainer(), worldName);
+        File archive = archiveFile(worldName);
+        File temporary = new File(folder, worldName + EXTENSION + ".tmp");
+        Executor mainThread = plugin.getServer().getScheduler().getMainThreadExecutor(plugin);
+
+        archiving.add(worldName);
+        abandoned.remove(worldName);
+
+        // The writer waits on the copy threads, so it must not run on one of them
+        CompletableFuture<long[]> written = new CompletableFuture<>();
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                written.complete(write(worldFolder.toPath(), temporary.toPath()));
+            } catch (IOException | RuntimeException e) {
+                written.completeExceptionally(e);
+            }
+        });
+
+        return written.handleAsync((sizes, error) -> {
+            busy.remove(worldName);
+            archiving.remove(worldName);
+            if (error != null) {
+                temporary.delete();
+                plugin.getLogger().warning("Failed to archive sandbox " + worldName + ": " + describe(error));
+                return false;
+            }
+
+            // Someone entered while the archive was written
+            if (abandoned.remove(worldName) || !isIdle(worldName)) {
+                temporary.delete();
+                return false;
+            }
+
+            try {
+                Files.move(temporary.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                temporary.delete();
+                plugin.getLogger().warning("Failed to archive sandbox " + worldName + ": " + e.getMessage());
+                return false;
+            }
+
+            mvWorldManager.removeWorldFromConfig(worldName);
+            plugin.getCopyScheduler().getRegionStore().release(worldName);
+            plugin.getCopyScheduler().getDeletionService().delete(worldFolder.toPath());
+            plugin.getLogger().info("Moved sandbox " + worldName + " to cold storage ("
+                + sizes[0] / 1024 + " KiB -> " + sizes[1] / 1024 + " KiB)");
+            return true;
+        }, mainThread);
+    }
+
+    /**
+     * Compresses every file of a world folder into an archive, several files at a time
+     * @return The total size of the files and the size of the archive
+     * @throws IOException Also if a file was added, removed or modified while it was written
+     */
+    private long[] write(Path worldFolder, Path archive) throws IOException {
+        Map<Path, Long> before = listFiles(worldFolder);
+        List<Path> files = new ArrayList<>(before.keySet());
+
+        List<Entry> entries = new ArrayList<>();
+        ExecutorService executor = plugin.getCopyScheduler().getRegionExecutor();
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(8).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            channel.write(header);
+
+            List<CompletableFuture<Void>> compressions = new ArrayList<>();
+            for (Path file : files) {
+                compressions.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        Entry entry = compress(worldFolder, file, channel);
+                        synchronized (entries) {
+                            entries.add(entry);
+                        }
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+            try {
+                CompletableFuture.allOf(compressions.toArray(CompletableFuture<?>[]::new)).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            }
+
+            long indexOffset = channel.size();
+            ByteArrayOutputStream index = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(index)) {
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    out.writeUTF(entry.path);
+                    out.writeLong(entry.offset);
+                    out.writeInt(entry.compressedLength);
+                    out.writeLong(entry.length);
+                    out.writeLong(entry.modified);
+                }
+                out.writeLong(indexOffset);
+                out.writeInt(MAGIC);
+            }
+            channel.write(ByteBuffer.wrap(index.toByteArray()), indexOffset);
+            channel.force(true);
+        }
+
+        if (!listFiles(worldFolder).equals(before)) {
+            throw new IOException("the world changed while it was archived");
+        }
+
+        long total = 0;
+        for (Entry entry : entries) {
+            total += entry.length;
+        }
+        return new long[] { total, Files.size(archive) };
+    }
+
+    /**
+     * Lists the files of a world folder with their modification times
+     */
+    private static Map<Path, Long> listFiles(Path worldFolder) throws IOException {
+        Map<Path, Long> files = new HashMap<>();
+        try (Stream<Path> walk = Files.walk(worldFolder)) {
+            for (Path path : (Iterable<Path>) walk::iterator) {
+                if (Files.isRegularFile(path) && !path.getFileName().toString().equals("session.lock")) {
+                    files.put(path, Files.getLastModifiedTime(path).toMillis());
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Compresses one file and appends it to the archive
+     */
+    private Entry compress(Path worldFolder, Path file, FileChannel channel) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        byte[] compressed = Lz4Block.compress(data);
+
+        long offset;
+        synchronized (channel) {
+            offset = channel.size();
+            channel.write(ByteBuffer.wrap(compressed), offset);
+        }
+        throttle(compressed.length);
+
+        String path = worldFolder.relativize(file).toString().replace(File.separatorChar, '/');
+        return new Entry(VERSION, path, offset, compressed.length, data.length,
+            Files.getLastModifiedTime(file).toMillis());
+    }
+
+    /**
+     * Reads the index at the end of an archive
+     */
+    private static List<Entry> readIndex(Path archive) throws IOException {
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            channel.read(header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a sandbox archive: " + archive);
+            }
+            int version = header.getInt();
+            if (version != VERSION && version != VERSION_DEFLATE) {
+                throw new IOException("Unsupported sandbox archive version " + version + ": " + archive);
+            }
+
+            ByteBuffer footer = ByteBuffer.allocate(12);
+            channel.read(footer, channel.size() - 12);
+            footer.flip();
+            long indexOffset = footer.getLong();
+            if (footer.getInt() != MAGIC) {
+                throw new IOException("Not a sandbox archive: " + archive);
+            }
+
+            channel.position(indexOffset);
+            DataInputStream in = new DataInputStream(Channels.newInputStream(channel));
+            int count = in.readInt();
+            List<Entry> entries = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                entries.add(new Entry(version, in.readUTF(), in.readLong(), in.readInt(), in.readLong(), in.readLong()));
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Unpacks one file of an archive into a world folder
+     */
+    private void extract(Path archive, Entry entry, Path worldFolder) throws IOException {
+        Path target = worldFolder.resolve(entry.path).normalize();
+        if (!target.startsWith(worldFolder)) {
+            throw new IOException("Archive entry outside the world folder: " + entry.path);
+        }
+        Files.createDirectories(target.getParent());
+
+        ByteBuffer compressed = ByteBuffer.allocate(entry.compressedLength);
+        try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+            while (compressed.hasRemaining()) {
+                if (channel.read(compressed, entry.offset + compressed.position()) < 0) {
+                    throw new IOException("Truncated archive: " + archive);
+                }
+            }
+        }
+
+        if (entry.version == VERSION_DEFLATE) {
+            try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(compressed.array()));
+                 OutputStream out = Files.newOutputStream(target)) {
+                in.transferTo(out);
+            }
+        } else {
+            Files.write(target, Lz4Block.decompress(compressed.array(), 0, entry.compressedLength));
+        }
+        // Resets compare modification times to skip unchanged regions
+        target.toFile().setLastModified(entry.modified);
+        throttle(entry.length);
+    }
+
+    private void throttle(long bytes) throws IOException {
+        try {
+            plugin.getCopyScheduler().getThrottle().acquire(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Cold storage interrupted");
+        }
+    }
+
+    private static String describe(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return cause.getMessage();
+    }
+
+    private File archiveFile(String worldName) {
+        return new File(folder, worldName + EXTENSION);
+    }
+
+    private static class Entry {
+        /** The archive version, which decides how the file was compressed */
+        private final int version;
+        private final String path;
+        private final long offset;
+        private final int compressedLength;
+        private final long length;
+        private final long modified;
+
+        private Entry(int version, String path, long offset, int compressedLength, long length, long modified) {
+            this.version = version;
+            this.path = path;
+            this.offset = offset;
+            this.compressedLength = compressedLength;
+            this.length = length;
+            this.modified = modified;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.designsandbox.world;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import com.example.designsandbox.DesignSandboxPlugin;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.scheduler.BukkitRunnable;
+
+/**
+ * Adapts the copy rate of the shared {@link IoThrottle} to how busy the server is.
+ *
+ * Every performance.adaptive.check-interval ticks the average time of the ticks since the last
+ * check is compared with three thresholds. The server's own average spans the last 100 ticks,
+ * which would keep reporting a spike for seconds after the rate was cut and cut it again. Below idle-mspt the rate grows by a fixed step up to max-mb-per-second, above
+ * slow-mspt it is multiplied by decrease-factor down to min-mb-per-second, and above pause-mspt
+ * copies stop until the tick time drops below slow-mspt again. In between the rate is kept.
+ * Growing slowly and backing off fast lets builds use a quiet server's whole disk without being
+ * the reason a busy one lags.
+ *
+ * Only the byte rate is adapted. Copies pay one file operation per region file, so whenever the
+ * byte rate is cut it is also what limits the operations; the operation limit stays a fixed
+ * ceiling for folders of many small files.
+ */
+public class CopyRateController implements Listener {
+    private static final double MB = 1024 * 1024;
+
+    private final DesignSandboxPlugin plugin;
+    private final IoThrottle throttle;
+    private final double idleMspt;
+    private final double slowMspt;
+    private final double pauseMspt;
+    private final double minRate;
+    private final double maxRate;
+    private final double increase;
+    private final double decreaseFactor;
+    private double rate;
+    /** Milliseconds spent in the ticks since the last check */
+    private double tickMillis;
+    private int ticks;
+
+    public CopyRateController(DesignSandboxPlugin plugin, IoThrottle throttle) {
+        this.plugin = plugin;
+        this.throttle = throttle;
+        this.idleMspt = plugin.getConfig().getDouble("performance.adaptive.idle-mspt", 25);
+        this.slowMspt = plugin.getConfig().getDouble("performance.adaptive.slow-mspt", 40);
+        this.pauseMspt = plugin.getConfig().getDouble("performance.adaptive.pause-mspt", 48);
+        this.minRate = Math.max(0.1, plugin.getConfig().getDouble("performance.adaptive.min-mb-per-second", 5)) * MB;
+        this.maxRate = Math.max(minRate, plugin.getConfig().getDouble("performance.adaptive.max-mb-per-second", 400) * MB);
+        this.increase = Math.max(0.1, plugin.getConfig().getDouble("performance.adaptive.increase-mb-per-second", 20)) * MB;
+        this.decreaseFactor = Math.min(0.95, Math.max(0.05,
+            plugin.getConfig().getDouble("performance.adaptive.decrease-factor", 0.5)));
+
+        // Start at the configured fixed limit, or in the middle of the range if there is none
+        double configured = throttle.getBytesPerSecond();
+        this.rate = configured > 0 ? clamp(configured) : (minRate + maxRate) / 2;
+        throttle.setBytesPerSecond(rate);
+    }
+
+    /**
+     * Starts checking the tick time
+     */
+    public void start() {
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        int interval = Math.max(1, plugin.getConfig().getInt("performance.adaptive.check-interval", 20));
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                if (ticks == 0) {
+                    return;
+                }
+                double mspt = tickMillis / ticks;
+                tickMillis = 0;
+                ticks = 0;
+                adjust(mspt);
+            }
+        }.runTaskTimer(plugin, interval, interval);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onTickEnd(ServerTickEndEvent event) {
+        tickMillis += event.getTickDuration();
+        ticks++;
+    }
+
+    /**
+     * Moves the copy rate one step for a measured tick time
+     */
+    private void adjust(double mspt) {
+        if (mspt > pauseMspt) {
+            if (!throttle.isPaused()) {
+                rate = minRate;
+                throttle.setBytesPerSecond(rate);
+                throttle.setPaused(true);
+                plugin.getLogger().info(String.format("Pausing sandbox copies, ticks take %.1fms", mspt));
+            }
+            return;
+        }
+
+        if (throttle.isPaused()) {
+            if (mspt > slowMspt) {
+                return;
+            }
+            throttle.setPaused(false);
+            plugin.getLogger().info(String.format("Resuming sandbox copies, ticks take %.1fms", mspt));
+        }
+
+        double next = rate;
+        if (mspt > slowMspt) {
+            next = clamp(rate * decreaseFactor);
+        } else if (mspt < idleMspt) {
+            next = clamp(rate + increase);
+        }
+        if (next != rate) {
+            rate = next;
+            throttle.setBytesPerSecond(rate);
+        }
+    }
+
+    private double clamp(double bytesPerSecond) {
+        return Math.max(minRate, Math.min(maxRate, bytesPerSecond));
+    }
+}
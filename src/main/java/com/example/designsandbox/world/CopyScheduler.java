@@ -0,0 +1,233 @@
+package com.example.designsandbox.world;
+
+import com.example.designsandbox.DesignSandboxPlugin;
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.model.user.User;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.entity.Player;
+import org.bukkit.permissions.PermissionAttachmentInfo;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs sandbox builds on the plugin's own threads instead of the Bukkit async pool.
+ *
+ * At most performance.max-concurrent-copies builds run at once; further builds wait in a queue
+ * shared fairly between players. Updates of existing sandboxes are short and go first; fresh
+ * builds are taken from the players in turn, weighted round-robin, so a player with weight 2
+ * starts two builds per turn. Weights come from the player's LuckPerms primary group and
+ * designsandbox.priority.N permissions. Each running build copies its regions in parallel on a shared pool of
+ * performance.copy-threads workers, and all copies share one I/O throttle, whose byte rate
+ * follows the server's tick time when performance.adaptive is enabled.
+ */
+public class CopyScheduler {
+    private static final String PRIORITY_PERMISSION = "designsandbox.priority.";
+    private static final int MAX_WEIGHT = 10;
+
+    private final DesignSandboxPlugin plugin;
+    private final int maxConcurrentBuilds;
+    private final ExecutorService buildExecutor;
+    private final ExecutorService regionExecutor;
+    private final IoThrottle throttle;
+    private final FileCloner cloner;
+    private final RegionStore regionStore;
+    private final DeletionService deletionService;
+    private final int defaultWeight;
+    private final Map<String, Integer> groupWeights;
+    private final BuildQueue<WorldCopyTask> queue;
+    private int runningBuilds;
+
+    public CopyScheduler(DesignSandboxPlugin plugin) {
+        this.plugin = plugin;
+        this.maxConcurrentBuilds = Math.max(1, plugin.getConfig().getInt("performance.max-concurrent-copies", 3));
+        int copyThreads = Math.max(1, plugin.getConfig().getInt("performance.copy-threads", 4));
+        this.buildExecutor = Executors.newFixedThreadPool(maxConcurrentBuilds, namedThreads("DesignSandbox-Build"));
+        this.regionExecutor = Executors.newFixedThreadPool(copyThreads, namedThreads("DesignSandbox-Copy"));
+        this.throttle = new IoThrottle(
+            plugin.getConfig().getDouble("performance.io-limit.mb-per-second", 50) * 1024 * 1024,
+            plugin.getConfig().getDouble("performance.io-limit.iops", 200));
+        if (plugin.getConfig().getBoolean("performance.adaptive.enabled", true)) {
+            new CopyRateController(plugin, throttle).start();
+        }
+        this.cloner = new FileCloner(plugin);
+        this.cloner.detect(plugin.getServer().getWorldContainer().toPath());
+        this.regionStore = new RegionStore(plugin, cloner);
+        this.deletionService = new DeletionService(plugin);
+        this.defaultWeight = Math.max(1, plugin.getConfig().getInt("performance.queue.default-weight", 1));
+        this.groupWeights = new HashMap<>();
+        ConfigurationSection groups = plugin.getConfig().getConfigurationSection("performance.queue.group-weights");
+        if (groups != null) {
+            for (String group : groups.getKeys(false)) {
+                groupWeights.put(group.toLowerCase(Locale.ROOT), groups.getInt(group));
+            }
+        }
+        this.queue = new BuildQueue<>(WorldCopyTask::getOwnerKey, WorldCopyTask::getWeight, WorldCopyTask::isUpdate);
+        this.runningBuilds = 0;
+    }
+
+    /**
+     * Gets the queue weight of a player: the highest of the default weight, their primary
+     * group's weight and their designsandbox.priority.N permissions
+     * @param player The player, or null for builds resumed after a restart
+     */
+    public int getWeight(Player player) {
+        int weight = defaultWeight;
+        if (player == null) {
+            return weight;
+        }
+
+        LuckPerms luckPerms = plugin.getLuckPerms();
+        if (luckPerms != null) {
+            User user = luckPerms.getUserManager().getUser(player.getUniqueId());
+            if (user != null) {
+                weight = Math.max(weight, groupWeights.getOrDefault(user.getPrimaryGroup().toLowerCase(Locale.ROOT), 0));
+            }
+        }
+        for (PermissionAttachmentInfo permission : player.getEffectivePermissions()) {
+            String node = permission.getPermission();
+            if (permission.getValue() && node.startsWith(PRIORITY_PERMISSION)) {
+                try {
+                    weight = Math.max(weight, Integer.parseInt(node.substring(PRIORITY_PERMISSION.length())));
+                } catch (NumberFormatException e) {
+                    // Not a weight
+                }
+            }
+        }
+        return Math.min(weight, MAX_WEIGHT);
+    }
+
+    /**
+     * Queues a build and starts it as soon as a build slot is free. Builds cancelled while
+     * their source world was being saved are dropped.
+     */
+    public synchronized void submit(WorldCopyTask task) {
+        if (task.getFuture().isDone()) {
+            return;
+        }
+
+        queue.add(task);
+        drain();
+    }
+
+    /**
+     * Removes a build from the queue
+     * @return false if it was not waiting
+     */
+    public synchronized boolean remove(WorldCopyTask task) {
+        return queue.remove(task);
+    }
+
+    /**
+     * Starts queued builds while there are free slots
+     */
+    private synchronized void drain() {
+        WorldCopyTask task;
+        while (runningBuilds < maxConcurrentBuilds && (task = queue.poll()) != null) {
+            WorldCopyTask started = task;
+            runningBuilds++;
+            buildExecutor.execute(() -> {
+                try {
+                    started.run();
+                } finally {
+                    onBuildFinished();
+                }
+            });
+        }
+    }
+
+    private synchronized void onBuildFinished() {
+        runningBuilds--;
+        drain();
+    }
+
+    /**
+     * Gets the 1-based position of a build in the queue, or 0 if it is not waiting
+     */
+    public synchronized int getQueuePosition(WorldCopyTask task) {
+        return queue.getOrder().indexOf(task) + 1;
+    }
+
+    /**
+     * Gets the number of builds waiting for a slot
+     */
+    public synchronized int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Gets the number of builds currently copying
+     */
+    public synchronized int getRunningBuilds() {
+        return runningBuilds;
+    }
+
+    /**
+     * Gets the executor used to copy the regions of a running build
+     */
+    public ExecutorService getRegionExecutor() {
+        return regionExecutor;
+    }
+
+    /**
+     * Gets the throttle shared by all copies
+     */
+    public IoThrottle getThrottle() {
+        return throttle;
+    }
+
+    /**
+     * Gets the cloner used for whole-file copies
+     */
+    public FileCloner getCloner() {
+        return cloner;
+    }
+
+    /**
+     * Gets the deduplicated region store
+     */
+    public RegionStore getRegionStore() {
+        return regionStore;
+    }
+
+    /**
+     * Gets the service deleting world folders in the background
+     */
+    public DeletionService getDeletionService() {
+        return deletionService;
+    }
+
+    /**
+     * Stops accepting work and waits briefly for running copies to finish
+     */
+    public void shutdown() {
+        synchronized (this) {
+            queue.clear();
+        }
+        buildExecutor.shutdownNow();
+        regionExecutor.shutdownNow();
+        deletionService.shutdown();
+        try {
+            if (!buildExecutor.awaitTermination(5, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Sandbox builds did not stop in time; some worlds may be incomplete.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ThreadFactory namedThreads(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
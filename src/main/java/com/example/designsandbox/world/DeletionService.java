@@ -0,0 +1,146 @@
+package com.example.designsandbox.world;
+
+import com.example.designsandbox.DesignSandboxPlugin;
+import com.example.designsandbox.metrics.WorldDeleteEvent;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deletes world folders in the background on a few low-priority threads of its own.
+ *
+ * A folder is first renamed to a tombstone in designs/trash, which is instant, so its name can
+ * be reused straight away. The tombstone is then deleted with a file tree walk. Tombstones left
+ * behind by a restart are deleted when the plugin starts.
+ */
+public class DeletionService {
+    /** Length of the "-" and random UUID added to tombstone names */
+    private static final int TOMBSTONE_SUFFIX = 37;
+
+    private final DesignSandboxPlugin plugin;
+    private final File trashFolder;
+    private final String prefix;
+    private final ExecutorService executor;
+
+    public DeletionService(DesignSandboxPlugin plugin) {
+        this.plugin = plugin;
+        this.trashFolder = new File(new File(plugin.getServer().getWorldContainer(),
+            plugin.getConfig().getString("world.directory", "designs")), "trash");
+        this.prefix = plugin.getConfig().getString("world.name-prefix", "design_");
+        int threads = Math.max(1, plugin.getConfig().getInt("performance.delete-threads", 2));
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "DesignSandbox-Delete-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        trashFolder.mkdirs();
+
+        // Finish deletions interrupted by a restart
+        File[] leftovers = trashFolder.listFiles();
+        if (leftovers != null) {
+            for (File leftover : leftovers) {
+                String name = leftover.getName();
+                String original = name.length() > TOMBSTONE_SUFFIX ? name.substring(0, name.length() - TOMBSTONE_SUFFIX) : name;
+                executor.execute(() -> deleteTree(leftover.toPath(), original));
+            }
+        }
+    }
+
+    /**
+     * Deletes a folder in the background
+     * @return A future that completes once the path can be reused, which is right away unless
+     *         the folder could not be moved to the trash
+     */
+    public CompletableFuture<Void> delete(Path folder) {
+        if (!Files.exists(folder)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Path tombstone = trashFolder.toPath().resolve(folder.getFileName() + "-" + UUID.randomUUID());
+        try {
+            Files.move(folder, tombstone, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Another file system, so delete in place and make the caller wait
+            return CompletableFuture.runAsync(() -> deleteTree(folder, folder.getFileName().toString()), executor);
+        }
+
+        executor.execute(() -> deleteTree(tombstone, folder.getFileName().toString()));
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Gets the executor for other background deletions
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Stops deleting; anything left in the trash is deleted on the next start
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Deletes a file tree, reporting it to a flight recording under the name the folder had
+     */
+    private void deleteTree(Path root, String name) {
+        WorldDeleteEvent event = new WorldDeleteEvent();
+        event.begin();
+        try {
+            long files = deleteRecursively(root);
+            if (event.shouldCommit()) {
+                event.setSandbox(name, WorldManager.getOwner(name, prefix));
+                event.files = files;
+                event.commit();
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to delete " + root + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes a file tree, stopping early if the thread is interrupted. Visible for benchmarks,
+     * which clean up their fixtures with it.
+     * @return The number of files deleted
+     */
+    static long deleteRecursively(Path root) throws IOException {
+        AtomicLong files = new AtomicLong();
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                    if (Files.deleteIfExists(file)) {
+                        files.incrementAndGet();
+                    }
+                    return Thread.currentThread().isInterrupted() ? FileVisitResult.TERMINATE : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path directory, IOException error) throws IOException {
+                    Files.deleteIfExists(directory);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (NoSuchFileException e) {
+            // Already gone
+        }
+        return files.get();
+    }
+}
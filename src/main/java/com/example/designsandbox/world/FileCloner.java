@@ -0,0 +1,175 @@
+package com.example.designsandbox.world;
+
+import com.example.designsandbox.DesignSandboxPlugin;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copies whole files, using copy-on-write reflinks where the filesystem supports them.
+ *
+ * The JVM cannot issue the FICLONE ioctl itself, so reflinks are made with
+ * "cp --reflink=always". Support is probed once per filesystem: a reflink is tried on a
+ * scratch file and the result cached for that file store, and the strategy of every directory
+ * copied into is remembered so later copies skip the file store lookup. Filesystems without
+ * reflinks (ext4, tmpfs, Windows) fall back to a plain copy. Since every cp is a new process,
+ * many files going into one directory should be cloned together with {@link #reflinkAll}.
+ */
+public class FileCloner {
+    private static final long CLONE_TIMEOUT_SECONDS = 30;
+    /** Files per cp process, keeps the command line well below the system limit */
+    private static final int BATCH_SIZE = 256;
+
+    public enum Strategy {
+        REFLINK,
+        COPY
+    }
+
+    private final DesignSandboxPlugin plugin;
+    private final String configured;
+    private final Map<FileStore, Strategy> strategies;
+    private final Map<Path, Strategy> directories;
+
+    public FileCloner(DesignSandboxPlugin plugin) {
+        this.plugin = plugin;
+        this.configured = plugin.getConfig().getString("performance.clone-strategy", "auto").toLowerCase();
+        this.strategies = new ConcurrentHashMap<>();
+        this.directories = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Detects the strategy for the filesystem holding a directory and logs the result
+     */
+    public Strategy detect(Path directory) {
+        Path key = directory.toAbsolutePath();
+        Strategy known = directories.get(key);
+        if (known != null) {
+            return known;
+        }
+
+        try {
+            FileStore store = Files.getFileStore(key);
+            Strategy strategy = strategies.computeIfAbsent(store, s -> {
+                Strategy probed = probe(key);
+                plugin.getLogger().info("Sandbox copies on " + s.name() + " (" + s.type() + ") use "
+                    + (probed == Strategy.REFLINK ? "copy-on-write reflinks." : "plain file copies."));
+                return probed;
+            });
+            directories.put(key, strategy);
+            return strategy;
+        } catch (IOException e) {
+            // Not cached, the directory may not have been created yet
+            return Strategy.COPY;
+        }
+    }
+
+    private Strategy probe(Path directory) {
+        if ("copy".equals(configured)) {
+            return Strategy.COPY;
+        }
+
+        Path probe = null;
+        Path clone = null;
+        try {
+            probe = Files.createTempFile(directory, ".reflink-probe", ".tmp");
+            Files.write(probe, new byte[RegionFile.SECTOR_BYTES]);
+            clone = probe.resolveSibling(probe.getFileName() + ".clone");
+            if (reflink(probe, clone)) {
+                return Strategy.REFLINK;
+            }
+            if ("reflink".equals(configured)) {
+                plugin.getLogger().warning("performance.clone-strategy is reflink but " + directory
+                    + " does not support it; falling back to plain copies.");
+            }
+            return Strategy.COPY;
+        } catch (IOException e) {
+            return Strategy.COPY;
+        } finally {
+            deleteQuietly(probe);
+            deleteQuietly(clone);
+        }
+    }
+
+    /**
+     * Copies a file, as a reflink if the target filesystem supports it
+     * @return true if the file was reflinked, false if its bytes were copied
+     */
+    public boolean copy(Path source, Path target) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (detect(parent) == Strategy.REFLINK && reflink(source, target)) {
+            return true;
+        }
+
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        return false;
+    }
+
+    /**
+     * Reflinks files into a directory under their own names, with one cp process per batch
+     * instead of one per file
+     * @return true if every file was reflinked; otherwise none of the targets are left behind
+     */
+    public boolean reflinkAll(List<Path> sources, Path directory) {
+        if (sources.isEmpty()) {
+            return true;
+        }
+        if (detect(directory) != Strategy.REFLINK) {
+            return false;
+        }
+
+        for (int from = 0; from < sources.size(); from += BATCH_SIZE) {
+            List<Path> batch = sources.subList(from, Math.min(sources.size(), from + BATCH_SIZE));
+            List<String> command = new ArrayList<>(List.of("cp", "--reflink=always", "--preserve=timestamps",
+                "-t", directory.toString()));
+            batch.forEach(source -> command.add(source.toString()));
+            if (!run(command, CLONE_TIMEOUT_SECONDS + batch.size())) {
+                sources.forEach(source -> deleteQuietly(directory.resolve(source.getFileName())));
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes a reflink copy, keeping timestamps so unchanged regions can be recognised later
+     */
+    private boolean reflink(Path source, Path target) {
+        return run(List.of("cp", "--reflink=always", "--preserve=timestamps", source.toString(), target.toString()),
+            CLONE_TIMEOUT_SECONDS);
+    }
+
+    private static boolean run(List<String> command, long timeoutSeconds) {
+        try {
+            Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+            if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return false;
+            }
+            return process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) return;
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException ignored) {
+        }
+    }
+}
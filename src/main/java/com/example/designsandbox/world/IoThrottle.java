@@ -0,0 +1,118 @@
+package com.example.designsandbox.world;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token bucket limiting the disk throughput of all sandbox copies together.
+ *
+ * Two buckets are kept, one in bytes per second and one in file operations per second. Callers
+ * pay for what they wrote and the bucket may go into debt, so a single 12 MB region is allowed
+ * through and the following operations wait until the debt is paid back. While paused, every
+ * operation waits until the throttle is resumed.
+ */
+public class IoThrottle {
+    /** Longest burst the buckets can save up while idle */
+    private static final double BURST_SECONDS = 1.0;
+
+    private double bytesPerSecond;
+    private double operationsPerSecond;
+    private double byteTokens;
+    private double operationTokens;
+    private long lastRefill;
+    private boolean paused;
+
+    /**
+     * @param bytesPerSecond Maximum throughput, 0 or less for unlimited
+     * @param operationsPerSecond Maximum file operations per second, 0 or less for unlimited
+     */
+    public IoThrottle(double bytesPerSecond, double operationsPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+        this.operationsPerSecond = operationsPerSecond;
+        this.byteTokens = bytesPerSecond * BURST_SECONDS;
+        this.operationTokens = operationsPerSecond * BURST_SECONDS;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Pays for one file operation of the given size, waiting if the buckets are in debt or the
+     * throttle is paused
+     */
+    public void acquire(long bytes) throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            while (paused) {
+                wait();
+            }
+            refill();
+            if (bytesPerSecond > 0) {
+                byteTokens -= bytes;
+            }
+            if (operationsPerSecond > 0) {
+                operationTokens -= 1;
+            }
+            waitNanos = Math.max(debtNanos(byteTokens, bytesPerSecond), debtNanos(operationTokens, operationsPerSecond));
+        }
+
+        long deadline = System.nanoTime() + waitNanos;
+        while (waitNanos > 0) {
+            LockSupport.parkNanos(this, waitNanos);
+            if (Thread.interrupted()) {
+                throw new InterruptedException("I/O throttle wait interrupted");
+            }
+            waitNanos = deadline - System.nanoTime();
+        }
+    }
+
+    /**
+     * Changes the byte rate, keeping the tokens already earned
+     */
+    public synchronized void setBytesPerSecond(double bytesPerSecond) {
+        refill();
+        this.bytesPerSecond = bytesPerSecond;
+        this.byteTokens = Math.min(byteTokens, bytesPerSecond * BURST_SECONDS);
+    }
+
+    /**
+     * Gets the current byte rate, 0 or less when unlimited
+     */
+    public synchronized double getBytesPerSecond() {
+        return bytesPerSecond;
+    }
+
+    /**
+     * Pauses or resumes all operations
+     */
+    public synchronized void setPaused(boolean paused) {
+        this.paused = paused;
+        if (!paused) {
+            // Start again from an empty bucket instead of a burst saved up during the pause
+            refill();
+            byteTokens = Math.min(byteTokens, 0);
+            notifyAll();
+        }
+    }
+
+    public synchronized boolean isPaused() {
+        return paused;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsed = (now - lastRefill) / (double) TimeUnit.SECONDS.toNanos(1);
+        lastRefill = now;
+        if (bytesPerSecond > 0) {
+            byteTokens = Math.min(bytesPerSecond * BURST_SECONDS, byteTokens + elapsed * bytesPerSecond);
+        }
+        if (operationsPerSecond > 0) {
+            operationTokens = Math.min(operationsPerSecond * BURST_SECONDS, operationTokens + elapsed * operationsPerSecond);
+        }
+    }
+
+    private static long debtNanos(double tokens, double rate) {
+        if (rate <= 0 || tokens >= 0) {
+            return 0;
+        }
+        return (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.designsandbox.world;
+
+import com.example.designsandbox.DesignSandboxPlugin;
+import org.bukkit.Chunk;
+import org.bukkit.Location;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerMoveEvent;
+import org.bukkit.event.player.PlayerTeleportEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Copies the remaining regions of lazily built sandboxes in the background.
+ *
+ * Each sandbox drains its pending regions one at a time on the copy scheduler's region pool.
+ * The next region is the one closest to where its players are heading: player movement moves
+ * the focus point ahead of the player, and chunk loads near a pending region push it to the
+ * front of the line.
+ *
+ * Players are held back from pending regions by more than their view distance, so the server
+ * does not generate terrain where a region is still to be copied. Should it generate a chunk in
+ * a pending region anyway, the region is copied again the next time the sandbox is loaded.
+ */
+public class LazyRegionLoader implements Listener {
+    private final DesignSandboxPlugin plugin;
+    private final Map<String, PendingSandbox> sandboxes;
+    private final int lookaheadBlocks;
+
+    public LazyRegionLoader(DesignSandboxPlugin plugin) {
+        this.plugin = plugin;
+        this.sandboxes = new ConcurrentHashMap<>();
+        this.lookaheadBlocks = plugin.getConfig().getInt("world.lazy.lookahead-chunks", 16) * 16;
+    }
+
+    /**
+     * Starts materializing the given regions of a build in the background
+     */
+    public void track(WorldCopyTask task, Collection<RegionCalculator.RegionCoordinate> regions) {
+        Location center = task.getRegionCalculator().getCenter();
+        PendingSandbox sandbox = new PendingSandbox(task, regions, center.getBlockX(), center.getBlockZ());
+        PendingSandbox previous = sandboxes.put(task.getTargetWorldName(), sandbox);
+        if (previous != null) {
+            previous.clear();
+        }
+        drain(task.getTargetWorldName(), sandbox);
+    }
+
+    /**
+     * Checks if a sandbox still has regions waiting to be copied
+     */
+    public boolean isMaterializing(String worldName) {
+        return sandboxes.containsKey(worldName);
+    }
+
+    /**
+     * Copies the next pending region and queues the one after it
+     */
+    private void drain(String worldName, PendingSandbox sandbox) {
+        ExecutorService executor = plugin.getCopyScheduler().getRegionExecutor();
+        if (executor.isShutdown()) {
+            return;
+        }
+        executor.execute(() -> {
+            RegionCalculator.RegionCoordinate region = sandbox.next();
+            if (region == null) {
+                // A sandbox replaced by a newer build leaves the journal to that build
+                if (sandboxes.remove(worldName, sandbox)) {
+                    sandbox.task.finishLazyRegions();
+                } else {
+                    sandbox.task.closeJournal();
+                }
+                return;
+            }
+
+            try {
+                sandbox.task.copyLazyRegion(region);
+                if (sandbox.finish(region)) {
+                    // The server generated a chunk here first and will save it over the copy
+                    sandbox.task.invalidateRegion(region);
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to copy " + region + " into " + worldName + ": " + e.getMessage());
+            }
+            drain(worldName, sandbox);
+        });
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onMoveTowardsPending(PlayerMoveEvent event) {
+        holdBack(event, false);
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onTeleportTowardsPending(PlayerTeleportEvent event) {
+        holdBack(event, true);
+    }
+
+    /**
+     * Stops a player from getting within view distance of a region that has not been copied yet.
+     * Moves away from pending regions are always allowed, so nobody gets stuck.
+     */
+    private void holdBack(PlayerMoveEvent event, boolean teleport) {
+        Location to = event.getTo();
+        if (to == null || to.getWorld() == null) {
+            return;
+        }
+        PendingSandbox sandbox = sandboxes.get(to.getWorld().getName());
+        if (sandbox == null) {
+            return;
+        }
+
+        double limit = getHoldBackDistance(to.getWorld().getViewDistance());
+        double distance = sandbox.distanceToPending(to.getX(), to.getZ());
+        if (distance > limit) {
+            return;
+        }
+        Location from = event.getFrom();
+        boolean sameWorld = from.getWorld() != null && from.getWorld().getName().equals(to.getWorld().getName());
+        if (!teleport && sameWorld && distance >= sandbox.distanceToPending(from.getX(), from.getZ())) {
+            return;
+        }
+
+        event.setCancelled(true);
+        sandbox.prioritizeAround(to.getBlockX(), to.getBlockZ(), (int) limit);
+        event.getPlayer().sendActionBar(plugin.getConfig().getString("messages.world-materializing",
+            "This part of your sandbox is still being copied..."));
+    }
+
+    /**
+     * Gets how close players may come to a pending region, in blocks: the view distance and
+     * two chunks to spare
+     */
+    static double getHoldBackDistance(int viewDistance) {
+        return (viewDistance + 2) * 16.0;
+    }
+
+    /**
+     * Checks if a region is so close to a point that a player standing there would be held back
+     * until it is copied
+     */
+    static boolean isWithinHoldBack(RegionCalculator.RegionCoordinate region, double x, double z, int viewDistance) {
+        double limit = getHoldBackDistance(viewDistance);
+        return PendingSandbox.distanceSquared(region, x, z) <= limit * limit;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPlayerMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+        if (to == null || (from.getBlockX() >> 4 == to.getBlockX() >> 4 && from.getBlockZ() >> 4 == to.getBlockZ() >> 4)) {
+            return;
+        }
+
+        PendingSandbox sandbox = sandboxes.get(to.getWorld().getName());
+        if (sandbox != null) {
+            sandbox.moveFocus(from, to, lookaheadBlocks);
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChunkLoad(ChunkLoadEvent event) {
+        PendingSandbox sandbox = sandboxes.get(event.getWorld().getName());
+        if (sandbox == null) {
+            return;
+        }
+
+        Chunk chunk = event.getChunk();
+        int blockX = (chunk.getX() << 4) + 8;
+        int blockZ = (chunk.getZ() << 4) + 8;
+        sandbox.prioritizeAround(blockX, blockZ, lookaheadBlocks);
+
+        if (event.isNewChunk() && sandbox.markGenerated(chunk.getX() >> 5, chunk.getZ() >> 5)) {
+            plugin.getLogger().warning("Chunk " + chunk.getX() + "," + chunk.getZ() + " in "
+                + event.getWorld().getName() + " was generated before its region was copied");
+        }
+    }
+
+    /**
+     * Regions of one sandbox still waiting to be copied
+     */
+    private static final class PendingSandbox {
+        private final WorldCopyTask task;
+        private final Set<RegionCalculator.RegionCoordinate> pending;
+        private final Set<RegionCalculator.RegionCoordinate> urgent;
+        /** Regions being copied right now */
+        private final Set<RegionCalculator.RegionCoordinate> copying;
+        /** Pending regions the server has generated chunks in */
+        private final Set<RegionCalculator.RegionCoordinate> generated;
+        private double focusX;
+        private double focusZ;
+
+        private PendingSandbox(WorldCopyTask task, Collection<RegionCalculator.RegionCoordinate> regions,
+                               double focusX, double focusZ) {
+            this.task = task;
+            this.pending = new HashSet<>(regions);
+            this.urgent = new HashSet<>();
+            this.copying = new HashSet<>();
+            this.generated = new HashSet<>();
+            this.focusX = focusX;
+            this.focusZ = focusZ;
+        }
+
+        /**
+         * Takes the most urgent region, or the one closest to the focus point
+         */
+        synchronized RegionCalculator.RegionCoordinate next() {
+            Set<RegionCalculator.RegionCoordinate> candidates = urgent.isEmpty() ? pending : urgent;
+            RegionCalculator.RegionCoordinate best = null;
+            double bestDistance = Double.MAX_VALUE;
+            for (RegionCalculator.RegionCoordinate region : candidates) {
+                double distance = distanceSquared(region, focusX, focusZ);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    best = region;
+                }
+            }
+            if (best != null) {
+                pending.remove(best);
+                urgent.remove(best);
+                copying.add(best);
+            }
+            return best;
+        }
+
+        /**
+         * Marks a region as copied
+         * @return true if the server generated chunks in it before the copy was in place
+         */
+        synchronized boolean finish(RegionCalculator.RegionCoordinate region) {
+            copying.remove(region);
+            return generated.remove(region);
+        }
+
+        /**
+         * Records a chunk generated by the server in a region
+         * @return false if the region is not waiting to be copied, so the chunk is fine
+         */
+        synchronized boolean markGenerated(int regionX, int regionZ) {
+            RegionCalculator.RegionCoordinate region = new RegionCalculator.RegionCoordinate(regionX, regionZ);
+            if (!pending.contains(region) && !copying.contains(region)) {
+                return false;
+            }
+            generated.add(region);
+            return true;
+        }
+
+        /**
+         * Gets the distance from a point to the closest region not copied yet
+         */
+        synchronized double distanceToPending(double x, double z) {
+            double closest = Double.MAX_VALUE;
+            for (RegionCalculator.RegionCoordinate region : pending) {
+                closest = Math.min(closest, distanceSquared(region, x, z));
+            }
+            for (RegionCalculator.RegionCoordinate region : copying) {
+                closest = Math.min(closest, distanceSquared(region, x, z));
+            }
+            return Math.sqrt(closest);
+        }
+
+        /**
+         * Moves the focus ahead of a player in the direction they are travelling
+         */
+        synchronized void moveFocus(Location from, Location to, int lookahead) {
+            double dx = to.getX() - from.getX();
+            double dz = to.getZ() - from.getZ();
+            double length = Math.sqrt(dx * dx + dz * dz);
+            if (length == 0) {
+                focusX = to.getX();
+                focusZ = to.getZ();
+                return;
+            }
+            focusX = to.getX() + dx / length * lookahead;
+            focusZ = to.getZ() + dz / length * lookahead;
+        }
+
+        /**
+         * Marks pending regions within a distance of a block as urgent
+         */
+        synchronized void prioritizeAround(int blockX, int blockZ, int distance) {
+            double limit = (double) distance * distance;
+            for (RegionCalculator.RegionCoordinate region : pending) {
+                if (distanceSquared(region, blockX, blockZ) <= limit) {
+                    urgent.add(region);
+                }
+            }
+        }
+
+        /**
+         * Drops all pending regions, used when a newer build replaces this one
+         */
+        synchronized void clear() {
+            pending.clear();
+            urgent.clear();
+        }
+
+        /**
+         * Gets the squared distance from a point to the closest block of a region
+         */
+        private static double distanceSquared(RegionCalculator.RegionCoordinate region, double x, double z) {
+            double minX = region.getX() * 512.0;
+            double minZ = region.getZ() * 512.0;
+            double dx = Math.max(0, Math.max(minX - x, x - (minX + 512)));
+            double dz = Math.max(0, Math.max(minZ - z, z - (minZ + 512)));
+            return dx * dx + dz * dz;
+        }
+    }
+}
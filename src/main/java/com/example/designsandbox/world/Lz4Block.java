@@ -0,0 +1,313 @@
+package com.example.designsandbox.world;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Reader and writer for the LZ4 block stream the server uses for chunk compression type 4.
+ *
+ * This is the framing of lz4-java's LZ4BlockOutputStream: blocks of up to 64 KiB, each with the
+ * "LZ4Block" magic, a method and level byte, the compressed and original lengths and an XXH32
+ * checksum of the original data, followed by an empty block. The compressor is a plain greedy
+ * LZ4 matcher, which decompresses as fast as the server's own output.
+ */
+public final class Lz4Block {
+    private static final byte[] MAGIC = { 'L', 'Z', '4', 'B', 'l', 'o', 'c', 'k' };
+    private static final int HEADER_LENGTH = MAGIC.length + 13;
+    private static final int METHOD_RAW = 0x10;
+    private static final int METHOD_LZ4 = 0x20;
+    private static final int LEVEL_BASE = 10;
+    private static final int BLOCK_SIZE = 1 << 16;
+    private static final int LEVEL = 32 - Integer.numberOfLeadingZeros(BLOCK_SIZE - 1) - LEVEL_BASE;
+    private static final int CHECKSUM_SEED = 0x9747b28c;
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5;
+    private static final int MATCH_FIND_LIMIT = 12;
+    private static final int MAX_OFFSET = 65535;
+    private static final int HASH_LOG = 14;
+
+    private static final int PRIME1 = 0x9E3779B1;
+    private static final int PRIME2 = 0x85EBCA77;
+    private static final int PRIME3 = 0xC2B2AE3D;
+    private static final int PRIME4 = 0x27D4EB2F;
+    private static final int PRIME5 = 0x165667B1;
+
+    private Lz4Block() {
+    }
+
+    /**
+     * Compresses data into an LZ4 block stream
+     */
+    public static byte[] compress(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + 64);
+        byte[] block = new byte[HEADER_LENGTH + maxCompressedLength(BLOCK_SIZE)];
+        int[] table = new int[1 << HASH_LOG];
+
+        for (int offset = 0; offset < data.length; offset += BLOCK_SIZE) {
+            int length = Math.min(BLOCK_SIZE, data.length - offset);
+            int compressed = compressBlock(data, offset, length, block, HEADER_LENGTH, table);
+            int method = METHOD_LZ4;
+            if (compressed >= length) {
+                method = METHOD_RAW;
+                compressed = length;
+                System.arraycopy(data, offset, block, HEADER_LENGTH, length);
+            }
+            writeHeader(block, method, compressed, length, xxHash32(data, offset, length) & 0xFFFFFFF);
+            out.write(block, 0, HEADER_LENGTH + compressed);
+        }
+
+        writeHeader(block, METHOD_RAW, 0, 0, 0);
+        out.write(block, 0, HEADER_LENGTH);
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompresses an LZ4 block stream
+     */
+    public static byte[] decompress(byte[] stream, int offset, int length) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length * 3);
+        byte[] block = new byte[BLOCK_SIZE];
+        int end = offset + length;
+
+        while (true) {
+            if (end - offset < HEADER_LENGTH || !Arrays.equals(stream, offset, offset + MAGIC.length, MAGIC, 0, MAGIC.length)) {
+                throw new IOException("Bad LZ4 block header");
+            }
+            int token = stream[offset + MAGIC.length] & 0xFF;
+            int method = token & 0xF0;
+            int compressed = readIntLE(stream, offset + MAGIC.length + 1);
+            int original = readIntLE(stream, offset + MAGIC.length + 5);
+            int checksum = readIntLE(stream, offset + MAGIC.length + 9);
+            offset += HEADER_LENGTH;
+
+            if (original == 0 && compressed == 0) {
+                return out.toByteArray();
+            }
+            if ((method != METHOD_RAW && method != METHOD_LZ4) || original < 0 || compressed < 0
+                || original > 1 << (LEVEL_BASE + (token & 0x0F)) || compressed > end - offset) {
+                throw new IOException("Bad LZ4 block header");
+            }
+
+            if (block.length < original) {
+                block = new byte[original];
+            }
+            if (method == METHOD_RAW) {
+                if (compressed != original) {
+                    throw new IOException("Bad LZ4 raw block length");
+                }
+                System.arraycopy(stream, offset, block, 0, original);
+            } else {
+                decompressBlock(stream, offset, compressed, block, original);
+            }
+            if ((xxHash32(block, 0, original) & 0xFFFFFFF) != checksum) {
+                throw new IOException("LZ4 block checksum mismatch");
+            }
+            out.write(block, 0, original);
+            offset += compressed;
+        }
+    }
+
+    private static void writeHeader(byte[] block, int method, int compressed, int original, int checksum) {
+        System.arraycopy(MAGIC, 0, block, 0, MAGIC.length);
+        block[MAGIC.length] = (byte) (method | LEVEL);
+        writeIntLE(block, MAGIC.length + 1, compressed);
+        writeIntLE(block, MAGIC.length + 5, original);
+        writeIntLE(block, MAGIC.length + 9, checksum);
+    }
+
+    private static int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compresses one block with a greedy single-probe matcher
+     * @return The compressed length
+     */
+    private static int compressBlock(byte[] src, int srcOffset, int length, byte[] dst, int dstOffset, int[] table) {
+        int end = srcOffset + length;
+        int anchor = srcOffset;
+        int out = dstOffset;
+
+        if (length > MATCH_FIND_LIMIT) {
+            Arrays.fill(table, -1);
+            int matchFindLimit = end - MATCH_FIND_LIMIT;
+            int matchLimit = end - LAST_LITERALS;
+            int in = srcOffset;
+
+            while (in < matchFindLimit) {
+                int sequence = readIntLE(src, in);
+                int hash = (sequence * PRIME1) >>> (32 - HASH_LOG);
+                int ref = table[hash];
+                table[hash] = in;
+                if (ref < 0 || in - ref > MAX_OFFSET || readIntLE(src, ref) != sequence) {
+                    in++;
+                    continue;
+                }
+
+                // Grow the match backwards into the pending literals, then forwards
+                while (in > anchor && ref > srcOffset && src[in - 1] == src[ref - 1]) {
+                    in--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH;
+                while (in + matchLength < matchLimit && src[in + matchLength] == src[ref + matchLength]) {
+                    matchLength++;
+                }
+
+                out = writeSequence(src, anchor, in - anchor, dst, out, in - ref, matchLength);
+                in += matchLength;
+                anchor = in;
+            }
+        }
+
+        // The block always ends with literals
+        int literals = end - anchor;
+        int token = Math.min(literals, 15) << 4;
+        dst[out++] = (byte) token;
+        out = writeLength(dst, out, literals - 15);
+        System.arraycopy(src, anchor, dst, out, literals);
+        return out + literals - dstOffset;
+    }
+
+    private static int writeSequence(byte[] src, int literalStart, int literals, byte[] dst, int out,
+                                     int matchOffset, int matchLength) {
+        int token = (Math.min(literals, 15) << 4) | Math.min(matchLength - MIN_MATCH, 15);
+        dst[out++] = (byte) token;
+        out = writeLength(dst, out, literals - 15);
+        System.arraycopy(src, literalStart, dst, out, literals);
+        out += literals;
+        dst[out++] = (byte) matchOffset;
+        dst[out++] = (byte) (matchOffset >>> 8);
+        return writeLength(dst, out, matchLength - MIN_MATCH - 15);
+    }
+
+    /**
+     * Writes the part of a length that did not fit in its token nibble
+     */
+    private static int writeLength(byte[] dst, int out, int remaining) {
+        if (remaining < 0) {
+            return out;
+        }
+        while (remaining >= 255) {
+            dst[out++] = (byte) 255;
+            remaining -= 255;
+        }
+        dst[out++] = (byte) remaining;
+        return out;
+    }
+
+    private static void decompressBlock(byte[] src, int offset, int length, byte[] dst, int original) throws IOException {
+        int end = offset + length;
+        int out = 0;
+
+        while (true) {
+            if (offset >= end) {
+                throw new IOException("Truncated LZ4 block");
+            }
+            int token = src[offset++] & 0xFF;
+
+            int literals = token >>> 4;
+            if (literals == 15) {
+                int extra;
+                do {
+                    if (offset >= end) throw new IOException("Truncated LZ4 block");
+                    extra = src[offset++] & 0xFF;
+                    literals += extra;
+                } while (extra == 255);
+            }
+            if (literals > end - offset || literals > original - out) {
+                throw new IOException("Corrupt LZ4 block");
+            }
+            System.arraycopy(src, offset, dst, out, literals);
+            offset += literals;
+            out += literals;
+            if (offset == end) {
+                break;
+            }
+
+            if (end - offset < 2) {
+                throw new IOException("Truncated LZ4 block");
+            }
+            int matchOffset = (src[offset] & 0xFF) | (src[offset + 1] & 0xFF) << 8;
+            offset += 2;
+            int matchLength = token & 0x0F;
+            if (matchLength == 15) {
+                int extra;
+                do {
+                    if (offset >= end) throw new IOException("Truncated LZ4 block");
+                    extra = src[offset++] & 0xFF;
+                    matchLength += extra;
+                } while (extra == 255);
+            }
+            matchLength += MIN_MATCH;
+            if (matchOffset == 0 || matchOffset > out || matchLength > original - out) {
+                throw new IOException("Corrupt LZ4 block");
+            }
+
+            // Matches may overlap their own output, so copy byte by byte
+            for (int from = out - matchOffset, i = 0; i < matchLength; i++) {
+                dst[out + i] = dst[from + i];
+            }
+            out += matchLength;
+        }
+
+        if (out != original) {
+            throw new IOException("LZ4 block length mismatch");
+        }
+    }
+
+    /**
+     * XXH32, the checksum lz4-java stores for every block
+     */
+    static int xxHash32(byte[] data, int offset, int length) {
+        int end = offset + length;
+        int hash;
+        if (length >= 16) {
+            int v1 = CHECKSUM_SEED + PRIME1 + PRIME2;
+            int v2 = CHECKSUM_SEED + PRIME2;
+            int v3 = CHECKSUM_SEED;
+            int v4 = CHECKSUM_SEED - PRIME1;
+            int limit = end - 16;
+            do {
+                v1 = Integer.rotateLeft(v1 + readIntLE(data, offset) * PRIME2, 13) * PRIME1;
+                v2 = Integer.rotateLeft(v2 + readIntLE(data, offset + 4) * PRIME2, 13) * PRIME1;
+                v3 = Integer.rotateLeft(v3 + readIntLE(data, offset + 8) * PRIME2, 13) * PRIME1;
+                v4 = Integer.rotateLeft(v4 + readIntLE(data, offset + 12) * PRIME2, 13) * PRIME1;
+                offset += 16;
+            } while (offset <= limit);
+            hash = Integer.rotateLeft(v1, 1) + Integer.rotateLeft(v2, 7)
+                + Integer.rotateLeft(v3, 12) + Integer.rotateLeft(v4, 18);
+        } else {
+            hash = CHECKSUM_SEED + PRIME5;
+        }
+
+        hash += length;
+        for (; offset + 4 <= end; offset += 4) {
+            hash = Integer.rotateLeft(hash + readIntLE(data, offset) * PRIME3, 17) * PRIME4;
+        }
+        for (; offset < end; offset++) {
+            hash = Integer.rotateLeft(hash + (data[offset] & 0xFF) * PRIME5, 11) * PRIME1;
+        }
+
+        hash ^= hash >>> 15;
+        hash *= PRIME2;
+        hash ^= hash >>> 13;
+        hash *= PRIME3;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    private static int readIntLE(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8
+            | (data[offset + 2] & 0xFF) << 16 | (data[offset + 3] & 0xFF) << 24;
+    }
+
+    private static void writeIntLE(byte[] data, int offset, int value) {
+        data[offset] = (byte) value;
+        data[offset + 1] = (byte) (value >>> 8);
+        data[offset + 2] = (byte) (value >>> 16);
+        data[offset + 3] = (byte) (value >>> 24);
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.designsandbox.world;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only view of a region file through a memory map.
+ *
+ * The header and chunks are read straight from the map and walked with a reusable {@link Chunk}
+ * cursor, so going over a region allocates nothing per chunk. Sectors are written to other files
+ * with FileChannel.transferTo, which lets the kernel move them without passing through the heap.
+ * The mapping itself is released by the garbage collector after {@link #close()}.
+ */
+public class MappedRegion implements Closeable {
+    private static final int SECTOR_BYTES = RegionFile.SECTOR_BYTES;
+    private static final int EXTERNAL_FLAG = 0x80;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final MappedByteBuffer map;
+    private final long size;
+
+    private MappedRegion(Path file, FileChannel channel) throws IOException {
+        this.file = file;
+        this.channel = channel;
+        this.size = channel.size();
+        this.map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    /**
+     * Maps a region file for reading
+     */
+    public static MappedRegion open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new MappedRegion(file, channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Gets the sector offset of a chunk, or 0 if the chunk is not present
+     */
+    public int getSectorOffset(int index) {
+        return size < RegionFile.HEADER_BYTES ? 0 : map.getInt(index * 4) >>> 8;
+    }
+
+    /**
+     * Gets the number of sectors allocated to a chunk
+     */
+    public int getSectorCount(int index) {
+        return size < RegionFile.HEADER_BYTES ? 0 : map.getInt(index * 4) & 0xFF;
+    }
+
+    /**
+     * Gets the last-saved timestamp of a chunk in epoch seconds
+     */
+    public int getTimestamp(int index) {
+        return size < RegionFile.HEADER_BYTES ? 0 : map.getInt(SECTOR_BYTES + index * 4);
+    }
+
+    /**
+     * Creates a cursor for reading the chunks of this region
+     */
+    public Chunk cursor() {
+        return new Chunk();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * A cursor over the chunks of the region. {@link #moveTo(int)} points it at a chunk; the
+     * other methods read the chunk it points at.
+     */
+    public final class Chunk {
+        private final ByteBuffer view = map.duplicate();
+        private int index = -1;
+        private long position;
+        private int sectorCount;
+        private int length;
+
+        private Chunk() {
+        }
+
+        /**
+         * Points the cursor at a chunk
+         * @return false if the chunk is missing, empty or runs past the end of the file; such
+         *         chunks are left out of copies so the server regenerates them
+         */
+        public boolean moveTo(int index) {
+            this.index = -1;
+            int offset = getSectorOffset(index);
+            int count = getSectorCount(index);
+            if (offset < 2 || count == 0) {
+                return false;
+            }
+
+            long start = (long) offset * SECTOR_BYTES;
+            if (start + 5 > size || start + (long) count * SECTOR_BYTES > roundToSector(size)) {
+                return false;
+            }
+            int chunkLength = map.getInt((int) start);
+            if (chunkLength <= 0 || start + 4 + storedLength(chunkLength, count) > size) {
+                return false;
+            }
+
+            this.index = index;
+            this.position = start;
+            this.sectorCount = count;
+            this.length = chunkLength;
+            return true;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Gets the compression type, without the external flag
+         */
+        public int getCompression() {
+            return map.get((int) position + 4) & ~EXTERNAL_FLAG;
+        }
+
+        /**
+         * Checks if the chunk data is stored in an external c.X.Z.mcc file
+         */
+        public boolean isExternal() {
+            return (map.get((int) position + 4) & EXTERNAL_FLAG) != 0;
+        }
+
+        /**
+         * Gets the sectors the chunk actually uses, trimming padding left over from earlier saves
+         */
+        public int getUsedSectors() {
+            return Math.min((length + 4 + SECTOR_BYTES - 1) / SECTOR_BYTES, sectorCount);
+        }
+
+        /**
+         * Gets the length field and the stored chunk as a view into the map. The buffer is reused
+         * by the next call.
+         */
+        public ByteBuffer getStoredBytes() {
+            int start = (int) position;
+            view.limit(start + 4 + storedLength(length, sectorCount)).position(start);
+            return view;
+        }
+
+        /**
+         * Copies the compression type byte and chunk data to the heap, for transforms
+         */
+        public byte[] toArray() {
+            byte[] chunk = new byte[storedLength(length, sectorCount)];
+            map.get((int) position + 4, chunk);
+            return chunk;
+        }
+
+        /**
+         * Writes the used sectors of the chunk to another file
+         */
+        public void transferTo(FileChannel out, long to) throws IOException {
+            long length = Math.min((long) getUsedSectors() * SECTOR_BYTES, size - position);
+            long done = 0;
+            while (done < length) {
+                long n = channel.transferTo(position + done, length - done, out.position(to + done));
+                if (n <= 0) break;
+                done += n;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of bytes after the length field that belong to a chunk, cut to its sectors
+     */
+    private static int storedLength(int length, int sectorCount) {
+        return Math.min(length, sectorCount * SECTOR_BYTES - 4);
+    }
+
+    private static long roundToSector(long bytes) {
+        return (bytes + SECTOR_BYTES - 1) / SECTOR_BYTES * SECTOR_BYTES;
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.designsandbox.world;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal reader and writer for the NBT format used in chunk data.
+ *
+ * Tags are read into plain Java values: Byte, Short, Integer, Long, Float, Double, byte[], String,
+ * {@link NbtList}, Map (compounds, in file order), int[] and long[]. Writing a tree read this way
+ * gives back the same bytes.
+ */
+public final class Nbt {
+    private static final int END = 0;
+    private static final int BYTE = 1;
+    private static final int SHORT = 2;
+    private static final int INT = 3;
+    private static final int LONG = 4;
+    private static final int FLOAT = 5;
+    private static final int DOUBLE = 6;
+    private static final int BYTE_ARRAY = 7;
+    private static final int STRING = 8;
+    private static final int LIST = 9;
+    private static final int COMPOUND = 10;
+    private static final int INT_ARRAY = 11;
+    private static final int LONG_ARRAY = 12;
+
+    /** Same nesting limit as the server, so broken data cannot overflow the stack */
+    private static final int MAX_DEPTH = 512;
+
+    private Nbt() {
+    }
+
+    /**
+     * Reads a named root compound
+     */
+    public static Map<String, Object> readRoot(DataInput in) throws IOException {
+        if (in.readByte() != COMPOUND) {
+            throw new IOException("NBT root is not a compound");
+        }
+        in.readUTF();
+        return readCompound(in, 0);
+    }
+
+    /**
+     * Writes a root compound with an empty name
+     */
+    public static void writeRoot(DataOutput out, Map<String, Object> root) throws IOException {
+        out.writeByte(COMPOUND);
+        out.writeUTF("");
+        writePayload(out, root);
+    }
+
+    private static Map<String, Object> readCompound(DataInput in, int depth) throws IOException {
+        Map<String, Object> compound = new LinkedHashMap<>();
+        int type;
+        while ((type = in.readByte()) != END) {
+            String name = in.readUTF();
+            compound.put(name, readPayload(in, type, depth + 1));
+        }
+        return compound;
+    }
+
+    private static Object readPayload(DataInput in, int type, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("NBT nested too deeply");
+        }
+
+        switch (type) {
+            case BYTE: return in.readByte();
+            case SHORT: return in.readShort();
+            case INT: return in.readInt();
+            case LONG: return in.readLong();
+            case FLOAT: return in.readFloat();
+            case DOUBLE: return in.readDouble();
+            case BYTE_ARRAY: {
+                byte[] value = new byte[checkLength(in.readInt())];
+                in.readFully(value);
+                return value;
+            }
+            case STRING: return in.readUTF();
+            case LIST: {
+                int elementType = in.readByte();
+                int length = checkLength(in.readInt());
+                NbtList list = new NbtList(elementType, new ArrayList<>(Math.min(length, 1024)));
+                for (int i = 0; i < length; i++) {
+                    list.values.add(readPayload(in, elementType, depth + 1));
+                }
+                return list;
+            }
+            case COMPOUND: return readCompound(in, depth);
+            case INT_ARRAY: {
+                int[] value = new int[checkLength(in.readInt())];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = in.readInt();
+                }
+                return value;
+            }
+            case LONG_ARRAY: {
+                long[] value = new long[checkLength(in.readInt())];
+                for (int i = 0; i < value.length; i++) {
+                    value[i] = in.readLong();
+                }
+                return value;
+            }
+            default:
+                throw new IOException("Unknown NBT tag type " + type);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void writePayload(DataOutput out, Object value) throws IOException {
+        if (value instanceof Byte) {
+            out.writeByte((Byte) value);
+        } else if (value instanceof Short) {
+            out.writeShort((Short) value);
+        } else if (value instanceof Integer) {
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeLong((Long) value);
+        } else if (value instanceof Float) {
+            out.writeFloat((Float) value);
+        } else if (value instanceof Double) {
+            out.writeDouble((Double) value);
+        } else if (value instanceof byte[]) {
+            byte[] array = (byte[]) value;
+            out.writeInt(array.length);
+            out.write(array);
+        } else if (value instanceof String) {
+            out.writeUTF((String) value);
+        } else if (value instanceof NbtList) {
+            NbtList list = (NbtList) value;
+            out.writeByte(list.values.isEmpty() ? list.elementType : typeOf(list.values.get(0)));
+            out.writeInt(list.values.size());
+            for (Object element : list.values) {
+                writePayload(out, element);
+            }
+        } else if (value instanceof Map) {
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                out.writeByte(typeOf(entry.getValue()));
+                out.writeUTF(entry.getKey());
+                writePayload(out, entry.getValue());
+            }
+            out.writeByte(END);
+        } else if (value instanceof int[]) {
+            int[] array = (int[]) value;
+            out.writeInt(array.length);
+            for (int element : array) {
+                out.writeInt(element);
+            }
+        } else if (value instanceof long[]) {
+            long[] array = (long[]) value;
+            out.writeInt(array.length);
+            for (long element : array) {
+                out.writeLong(element);
+            }
+        } else {
+            throw new IOException("Cannot write " + value.getClass().getSimpleName() + " as NBT");
+        }
+    }
+
+    private static int typeOf(Object value) throws IOException {
+        if (value instanceof Byte) return BYTE;
+        if (value instanceof Short) return SHORT;
+        if (value instanceof Integer) return INT;
+        if (value instanceof Long) return LONG;
+        if (value instanceof Float) return FLOAT;
+        if (value instanceof Double) return DOUBLE;
+        if (value instanceof byte[]) return BYTE_ARRAY;
+        if (value instanceof String) return STRING;
+        if (value instanceof NbtList) return LIST;
+        if (value instanceof Map) return COMPOUND;
+        if (value instanceof int[]) return INT_ARRAY;
+        if (value instanceof long[]) return LONG_ARRAY;
+        throw new IOException("Cannot write " + value.getClass().getSimpleName() + " as NBT");
+    }
+
+    private static int checkLength(int length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Negative NBT array length");
+        }
+        return length;
+    }
+
+    /**
+     * A list tag, which keeps its element type so empty lists are written back unchanged
+     */
+    public static final class NbtList {
+        private final int elementType;
+        private final List<Object> values;
+
+        private NbtList(int elementType, List<Object> values) {
+            this.elementType = elementType;
+            this.values = values;
+        }
+
+        public List<Object> getValues() {
+            return values;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.designsandbox.world;
+
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * The bookkeeping of the {@link SandboxPool}: which pooled worlds are waiting to be handed out
+ * and which player each given world belongs to, kept in pool.yml.
+ *
+ * A world is given to a player before their regions are copied into it. If that build fails or is
+ * cancelled the world is released again, so the player is not left with an empty world that
+ * counts as their sandbox.
+ */
+class PoolAssignments {
+    private final File file;
+    private final List<String> available;
+    private final Map<UUID, String> assignments;
+
+    PoolAssignments(File file) {
+        this.file = file;
+        this.available = new ArrayList<>();
+        this.assignments = new HashMap<>();
+        load();
+    }
+
+    /**
+     * Adds a newly created world to the ones waiting to be handed out
+     */
+    void add(String worldName) throws IOException {
+        available.add(worldName);
+        save();
+    }
+
+    /**
+     * Gives the first usable waiting world to a player
+     * @param usable Checks if a waiting world still exists; the ones that do not are dropped
+     * @return The world name, or null if no world is waiting
+     */
+    String claim(UUID playerId, Predicate<String> usable) throws IOException {
+        while (!available.isEmpty()) {
+            String worldName = available.remove(0);
+            if (!usable.test(worldName)) {
+                continue;
+            }
+            assignments.put(playerId, worldName);
+            save();
+            return worldName;
+        }
+        return null;
+    }
+
+    /**
+     * Takes a given world back from its player. The world is not handed out again, since a
+     * failed build may have left some of the player's regions in it.
+     * @return The player the world was given to, or null if it was not given to anyone
+     */
+    UUID release(String worldName) throws IOException {
+        for (Map.Entry<UUID, String> entry : assignments.entrySet()) {
+            if (entry.getValue().equals(worldName)) {
+                UUID playerId = entry.getKey();
+                assignments.remove(playerId);
+                save();
+                return playerId;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the world given to a player, or null if they have none
+     */
+    String getAssignedWorld(UUID playerId) {
+        return assignments.get(playerId);
+    }
+
+    /**
+     * Gets the player a world was given to, or null if it was not given to anyone
+     */
+    UUID getAssignedPlayer(String worldName) {
+        for (Map.Entry<UUID, String> entry : assignments.entrySet()) {
+            if (entry.getValue().equals(worldName)) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    boolean isAvailable(String worldName) {
+        return available.contains(worldName);
+    }
+
+    boolean isAssigned(String worldName) {
+        return assignments.containsValue(worldName);
+    }
+
+    int getAvailableCount() {
+        return available.size();
+    }
+
+    private void load() {
+        if (!file.isFile()) {
+            return;
+        }
+
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        available.addAll(yaml.getStringList("available"));
+        ConfigurationSection section = yaml.getConfigurationSection("assignments");
+        if (section != null) {
+            for (String key : section.getKeys(false)) {
+                assignments.put(UUID.fromString(key), section.getString(key));
+            }
+        }
+    }
+
+    private void save() throws IOException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("available", available);
+        for (Map.Entry<UUID, String> entry : assignments.entrySet()) {
+            yaml.set("assignments." + entry.getKey(), entry.getValue());
+        }
+        yaml.save(file);
+    }
+}
@@ -1,73 +1,143 @@
 package com.example.designsandbox.world;
 
 import org.bukkit.Location;
-
-import java.util.HashSet;
+import org.bukkit.WorldBorder;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
-
+import java.util.function.IntPredicate;
+
+/**
+ * Works out which chunks a sandbox copies: every chunk with a block within the radius of the
+ * center chunk, clipped to the source world's border, grouped by region file.
+ *
+ * The chunk sets are cached by world, center chunk, radius and border, so builds from the same
+ * spot share one calculation. Cached sets are never modified.
+ */
 public class RegionCalculator {
+    private static final int CACHE_SIZE = 64;
+    private static final Map<Key, Map<RegionCoordinate, BitSet>> CACHE = Collections.synchronizedMap(
+        new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Map<RegionCoordinate, BitSet>> eldest) {
+                return size() > CACHE_SIZE;
+            }
+        });
+
     private final Location center;
     private final int radius;
-    private final Set<RegionCoordinate> regions;
+    private final Map<RegionCoordinate, BitSet> chunks;
 
+    /**
+     * Must be called on the main thread, as it reads the world border
+     */
     public RegionCalculator(Location center, int radius) {
         this.center = center;
         this.radius = radius;
-        this.regions = calculateRegions();
+
+        WorldBorder border = center.getWorld().getWorldBorder();
+        double half = border.getSize() / 2;
+        Key key = new Key(center.getWorld().getName(), center.getBlockX() >> 4, center.getBlockZ() >> 4, radius,
+            (int) Math.floor(border.getCenter().getX() - half), (int) Math.floor(border.getCenter().getZ() - half),
+            (int) Math.ceil(border.getCenter().getX() + half), (int) Math.ceil(border.getCenter().getZ() + half));
+
+        Map<RegionCoordinate, BitSet> cached = CACHE.get(key);
+        if (cached == null) {
+            cached = calculateChunks(key);
+            CACHE.put(key, cached);
+        }
+        this.chunks = cached;
     }
 
     /**
-     * Calculates which region files need to be copied based on the radius
+     * Finds the chunks within a radius of a center chunk, ignoring the border and the cache.
+     * Visible for benchmarks, the plugin itself goes through the cached lookup.
      */
-    private Set<RegionCoordinate> calculateRegions() {
-        Set<RegionCoordinate> regions = new HashSet<>();
-        
-        // Convert radius from blocks to regions (1 region = 512 blocks)
-        int regionRadius = (radius / 512) + 1;
-        
-        // Get the center region coordinates
-        int centerRegionX = center.getBlockX() >> 9; // Divide by 512
-        int centerRegionZ = center.getBlockZ() >> 9;
-        
-        // Calculate a square of regions that encompasses our circle
-        for (int rx = -regionRadius; rx <= regionRadius; rx++) {
-            for (int rz = -regionRadius; rz <= regionRadius; rz++) {
-                // Add the region if any corner is within the radius
-                if (isRegionInRadius(rx, rz, regionRadius)) {
-                    regions.add(new RegionCoordinate(centerRegionX + rx, centerRegionZ + rz));
+    static Map<RegionCoordinate, BitSet> calculateChunks(int chunkX, int chunkZ, int radius) {
+        return calculateChunks(new Key("", chunkX, chunkZ, radius,
+            Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Finds the chunks within the radius and the border, grouped by region
+     */
+    private static Map<RegionCoordinate, BitSet> calculateChunks(Key key) {
+        Map<RegionCoordinate, BitSet> chunks = new HashMap<>();
+
+        // Measure from the middle of the center chunk so the result only depends on the chunk
+        int centerX = (key.chunkX << 4) + 8;
+        int centerZ = (key.chunkZ << 4) + 8;
+        long radiusSquared = (long) key.radius * key.radius;
+        int chunkRadius = key.radius / 16 + 1;
+
+        for (int cx = key.chunkX - chunkRadius; cx <= key.chunkX + chunkRadius; cx++) {
+            for (int cz = key.chunkZ - chunkRadius; cz <= key.chunkZ + chunkRadius; cz++) {
+                // Skip chunks entirely outside the world border
+                int blockX = cx << 4;
+                int blockZ = cz << 4;
+                if (blockX + 16 <= key.borderMinX || blockX >= key.borderMaxX
+                        || blockZ + 16 <= key.borderMinZ || blockZ >= key.borderMaxZ) {
+                    continue;
                 }
+
+                // Distance from the center to the closest block of the chunk
+                long dx = distanceToSpan(centerX, blockX, 16);
+                long dz = distanceToSpan(centerZ, blockZ, 16);
+                if (dx * dx + dz * dz > radiusSquared) continue;
+
+                chunks.computeIfAbsent(new RegionCoordinate(cx >> 5, cz >> 5), region -> new BitSet(RegionFile.CHUNKS_PER_REGION))
+                    .set(RegionFile.chunkIndex(cx, cz));
             }
         }
-        
-        return regions;
+        return Collections.unmodifiableMap(chunks);
+    }
+
+    /**
+     * Checks if a chunk is copied into the sandbox
+     */
+    public boolean isChunkInRadius(int chunkX, int chunkZ) {
+        BitSet regionChunks = chunks.get(new RegionCoordinate(chunkX >> 5, chunkZ >> 5));
+        return regionChunks != null && regionChunks.get(RegionFile.chunkIndex(chunkX, chunkZ));
     }
 
     /**
-     * Checks if a region should be included based on its distance from center
+     * Checks if every chunk of a region is copied into the sandbox
      */
-    private boolean isRegionInRadius(int rx, int rz, int regionRadius) {
-        // Check if any corner of the region is within the radius
-        double radiusSquared = regionRadius * regionRadius;
-        
-        // Check all four corners of the region
-        return isPointInRadius(rx, rz, radiusSquared) ||
-               isPointInRadius(rx + 1, rz, radiusSquared) ||
-               isPointInRadius(rx, rz + 1, radiusSquared) ||
-               isPointInRadius(rx + 1, rz + 1, radiusSquared);
+    public boolean isRegionFullyInRadius(RegionCoordinate region) {
+        BitSet regionChunks = chunks.get(region);
+        return regionChunks != null && regionChunks.cardinality() == RegionFile.CHUNKS_PER_REGION;
     }
 
     /**
-     * Checks if a point is within the radius using distance squared
+     * Gets a filter accepting the indexes of the chunks of a region that are copied
      */
-    private boolean isPointInRadius(double x, double z, double radiusSquared) {
-        return (x * x + z * z) <= radiusSquared;
+    public IntPredicate getChunkFilter(RegionCoordinate region) {
+        BitSet regionChunks = chunks.get(region);
+        if (regionChunks == null) {
+            return index -> false;
+        }
+        return regionChunks::get;
+    }
+
+    /**
+     * Gets the distance from a coordinate to the closest point of [start, start + length)
+     */
+    private static long distanceToSpan(int coordinate, int start, int length) {
+        if (coordinate < start) return start - coordinate;
+        if (coordinate >= start + length) return coordinate - (start + length - 1);
+        return 0;
     }
 
     /**
      * Gets the set of region coordinates that need to be copied
      */
     public Set<RegionCoordinate> getRegions() {
-        return regions;
+        return chunks.keySet();
     }
 
     /**
@@ -84,6 +154,48 @@ public class RegionCalculator {
         return radius;
     }
 
+    /**
+     * Inputs that decide the chunk sets of a calculation
+     */
+    private static final class Key {
+        private final String world;
+        private final int chunkX;
+        private final int chunkZ;
+        private final int radius;
+        private final int borderMinX;
+        private final int borderMinZ;
+        private final int borderMaxX;
+        private final int borderMaxZ;
+
+        private Key(String world, int chunkX, int chunkZ, int radius,
+                    int borderMinX, int borderMinZ, int borderMaxX, int borderMaxZ) {
+            this.world = world;
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.radius = radius;
+            this.borderMinX = borderMinX;
+            this.borderMinZ = borderMinZ;
+            this.borderMaxX = borderMaxX;
+            this.borderMaxZ = borderMaxZ;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return chunkX == that.chunkX && chunkZ == that.chunkZ && radius == that.radius
+                && borderMinX == that.borderMinX && borderMinZ == that.borderMinZ
+                && borderMaxX == that.borderMaxX && borderMaxZ == that.borderMaxZ
+                && world.equals(that.world);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(world, chunkX, chunkZ, radius, borderMinX, borderMinZ, borderMaxX, borderMaxZ);
+        }
+    }
+
     /**
      * Represents a region file coordinate pair
      */
@@ -0,0 +1,326 @@
+package com.example.designsandbox.world;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntPredicate;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads the header of an Anvil (.mca) region file and copies chunk sectors between region files.
+ * Source files are read through a {@link MappedRegion}.
+ *
+ * A region file starts with an 8 KiB header: 1024 location entries (3 byte sector offset, 1 byte
+ * sector count) followed by 1024 big-endian timestamps. Chunk index is (x & 31) + (z & 31) * 32.
+ */
+public class RegionFile {
+    public static final int SECTOR_BYTES = 4096;
+    public static final int HEADER_BYTES = SECTOR_BYTES * 2;
+    public static final int CHUNKS_PER_REGION = 1024;
+
+    /** Largest sector count a location entry can hold */
+    private static final int MAX_SECTORS = 255;
+
+    private final int[] locations;
+    private final int[] timestamps;
+
+    /**
+     * Rewrites the stored form of a chunk while it is copied
+     */
+    public interface ChunkTransform {
+        /**
+         * @param chunk The compression type byte followed by the compressed chunk data
+         * @return The chunk to write in the same form, or the given array if it is unchanged
+         */
+        byte[] apply(byte[] chunk) throws IOException;
+    }
+
+    private RegionFile(int[] locations, int[] timestamps) {
+        this.locations = locations;
+        this.timestamps = timestamps;
+    }
+
+    /**
+     * Reads the location and timestamp tables of a region file
+     */
+    public static RegionFile readHeader(FileChannel channel) throws IOException {
+        int[] locations = new int[CHUNKS_PER_REGION];
+        int[] timestamps = new int[CHUNKS_PER_REGION];
+
+        // Files shorter than the header (empty or truncated) have no chunks
+        if (channel.size() < HEADER_BYTES) {
+            return new RegionFile(locations, timestamps);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) break;
+        }
+        header.flip();
+        header.asIntBuffer().get(locations).get(timestamps);
+        return new RegionFile(locations, timestamps);
+    }
+
+    /**
+     * Gets the index of a chunk inside its region
+     */
+    public static int chunkIndex(int chunkX, int chunkZ) {
+        return (chunkX & 31) + (chunkZ & 31) * 32;
+    }
+
+    /**
+     * Gets the sector offset of a chunk, or 0 if the chunk is not present
+     */
+    public int getSectorOffset(int index) {
+        return locations[index] >>> 8;
+    }
+
+    /**
+     * Gets the number of sectors allocated to a chunk
+     */
+    public int getSectorCount(int index) {
+        return locations[index] & 0xFF;
+    }
+
+    /**
+     * Gets the last-saved timestamp of a chunk in epoch seconds
+     */
+    public int getTimestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * Checks if a chunk has data in this region
+     */
+    public boolean hasChunk(int index) {
+        return getSectorOffset(index) >= 2 && getSectorCount(index) > 0;
+    }
+
+    /**
+     * Writes a new region file containing only the chunks accepted by the filter. Sectors are packed
+     * back to back in chunk index order and the source timestamps are preserved.
+     * @return The number of bytes written, or 0 if no chunk was accepted and no file was created
+     */
+    public static long copyChunks(Path source, Path target, IntPredicate includeChunk) throws IOException {
+        return copyChunks(source, target, includeChunk, null);
+    }
+
+    /**
+     * Same as {@link #copyChunks(Path, Path, IntPredicate)}, passing every chunk through a transform
+     * @param transform The transform, or null to copy the sectors as they are
+     */
+    public static long copyChunks(Path source, Path target, IntPredicate includeChunk,
+                                  ChunkTransform transform) throws IOException {
+        try (MappedRegion in = MappedRegion.open(source)) {
+            MappedRegion.Chunk chunk = in.cursor();
+            int[] newLocations = new int[CHUNKS_PER_REGION];
+            int[] newTimestamps = new int[CHUNKS_PER_REGION];
+            byte[][] rewritten = transform != null ? new byte[CHUNKS_PER_REGION][] : null;
+            int nextSector = 2;
+            boolean anyChunk = false;
+
+            // Lay out the new file before writing anything
+            for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+                if (!includeChunk.test(i) || !chunk.moveTo(i)) continue;
+
+                int sectors;
+                if (transform != null) {
+                    rewritten[i] = transformChunk(chunk, transform);
+                    sectors = sectorsFor(rewritten[i].length);
+                } else {
+                    sectors = chunk.getUsedSectors();
+                }
+
+                newLocations[i] = (nextSector << 8) | sectors;
+                newTimestamps[i] = in.getTimestamp(i);
+                nextSector += sectors;
+                anyChunk = true;
+            }
+
+            if (!anyChunk) {
+                return 0;
+            }
+
+            try (FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeHeader(out, newLocations, newTimestamps);
+
+                for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+                    if (newLocations[i] == 0) continue;
+                    long to = (long) (newLocations[i] >>> 8) * SECTOR_BYTES;
+                    if (rewritten != null) {
+                        writeChunk(out, to, rewritten[i], newLocations[i] & 0xFF);
+                    } else {
+                        chunk.moveTo(i);
+                        chunk.transferTo(out, to);
+                    }
+                }
+
+                // Chunks over 1 MiB live in c.X.Z.mcc files next to the region
+                copyExternalChunks(in, target, newLocations);
+
+                return out.size();
+            }
+        }
+    }
+
+    /**
+     * Brings an existing region file in line with its source, rewriting only the chunks whose
+     * timestamps differ. Chunks rejected by the filter or missing from the source are removed.
+     * Changed chunks are written over their old sectors when they fit and appended otherwise.
+     * @return The number of chunk bytes written
+     */
+    public static long applyDelta(Path source, Path target, IntPredicate includeChunk) throws IOException {
+        return applyDelta(source, target, includeChunk, null);
+    }
+
+    /**
+     * Same as {@link #applyDelta(Path, Path, IntPredicate)}, passing every rewritten chunk through
+     * a transform
+     * @param transform The transform, or null to copy the sectors as they are
+     */
+    public static long applyDelta(Path source, Path target, IntPredicate includeChunk,
+                                  ChunkTransform transform) throws IOException {
+        try (MappedRegion in = MappedRegion.open(source);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedRegion.Chunk chunk = in.cursor();
+            RegionFile targetHeader = readHeader(out);
+            long endSector = Math.max(2, (out.size() + SECTOR_BYTES - 1) / SECTOR_BYTES);
+
+            int[] copied = new int[CHUNKS_PER_REGION];
+            boolean headerChanged = false;
+            long written = 0;
+
+            for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+                if (!includeChunk.test(i) || !chunk.moveTo(i)) {
+                    if (targetHeader.locations[i] != 0) {
+                        targetHeader.locations[i] = 0;
+                        targetHeader.timestamps[i] = 0;
+                        headerChanged = true;
+                    }
+                    continue;
+                }
+
+                // Same save time on both sides means neither the source nor the sandbox touched it
+                if (targetHeader.hasChunk(i) && targetHeader.getTimestamp(i) == in.getTimestamp(i)) {
+                    continue;
+                }
+
+                byte[] rewritten = transform != null ? transformChunk(chunk, transform) : null;
+                int sectors = rewritten != null ? sectorsFor(rewritten.length) : chunk.getUsedSectors();
+
+                long toSector;
+                if (targetHeader.hasChunk(i) && sectors <= targetHeader.getSectorCount(i)) {
+                    toSector = targetHeader.getSectorOffset(i);
+                } else {
+                    toSector = endSector;
+                    endSector += sectors;
+                }
+
+                if (rewritten != null) {
+                    writeChunk(out, toSector * SECTOR_BYTES, rewritten, sectors);
+                } else {
+                    chunk.transferTo(out, toSector * SECTOR_BYTES);
+                }
+                targetHeader.locations[i] = (int) (toSector << 8) | sectors;
+                targetHeader.timestamps[i] = in.getTimestamp(i);
+                copied[i] = targetHeader.locations[i];
+                headerChanged = true;
+                written += (long) sectors * SECTOR_BYTES;
+            }
+
+            if (headerChanged) {
+                writeHeader(out, targetHeader.locations, targetHeader.timestamps);
+                copyExternalChunks(in, target, copied);
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Hashes the chunks accepted by the filter with CRC32C, reading the file through a memory map.
+     * The hash covers chunk indexes and payloads but not where they sit in the file, so a packed
+     * or delta-updated copy hashes the same as its source. Chunks the copy methods skip as corrupt
+     * are skipped here too. A missing file or one without chunks hashes to 0.
+     */
+    public static long contentHash(Path file, IntPredicate includeChunk) throws IOException {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        try (MappedRegion region = MappedRegion.open(file)) {
+            MappedRegion.Chunk chunk = region.cursor();
+            CRC32C crc = new CRC32C();
+            ByteBuffer index = ByteBuffer.allocate(4);
+            for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+                if (!includeChunk.test(i) || !chunk.moveTo(i)) continue;
+
+                // Length field and payload, cut to the sectors the copy methods would keep
+                index.clear();
+                crc.update(index.putInt(0, i));
+                crc.update(chunk.getStoredBytes());
+            }
+            return crc.getValue();
+        }
+    }
+
+    /**
+     * Passes a chunk through a transform
+     * @return The transformed chunk, or the original if the result no longer fits the sector
+     *         count field
+     */
+    private static byte[] transformChunk(MappedRegion.Chunk chunk, ChunkTransform transform) throws IOException {
+        byte[] original = chunk.toArray();
+        byte[] result = transform.apply(original);
+        return sectorsFor(result.length) <= MAX_SECTORS ? result : original;
+    }
+
+    private static void writeHeader(FileChannel out, int[] locations, int[] timestamps) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.asIntBuffer().put(locations).put(timestamps);
+        while (header.hasRemaining()) {
+            out.write(header, header.position());
+        }
+    }
+
+    /**
+     * Writes a chunk with its length field, padded to whole sectors
+     */
+    private static void writeChunk(FileChannel out, long position, byte[] chunk, int sectors) throws IOException {
+        ByteBuffer[] buffers = {
+            ByteBuffer.allocate(4).putInt(0, chunk.length),
+            ByteBuffer.wrap(chunk),
+            ByteBuffer.allocate(sectors * SECTOR_BYTES - 4 - chunk.length)
+        };
+        out.position(position);
+        for (long remaining = (long) sectors * SECTOR_BYTES; remaining > 0; ) {
+            remaining -= out.write(buffers);
+        }
+    }
+
+    private static int sectorsFor(int chunkLength) {
+        return (chunkLength + 4 + SECTOR_BYTES - 1) / SECTOR_BYTES;
+    }
+
+    private static void copyExternalChunks(MappedRegion source, Path target, int[] newLocations) throws IOException {
+        String[] parts = source.getFile().getFileName().toString().split("\\.");
+        if (parts.length != 4) return;
+        int regionX = Integer.parseInt(parts[1]);
+        int regionZ = Integer.parseInt(parts[2]);
+
+        MappedRegion.Chunk chunk = source.cursor();
+        for (int i = 0; i < CHUNKS_PER_REGION; i++) {
+            if (newLocations[i] == 0 || !chunk.moveTo(i) || !chunk.isExternal()) continue;
+
+            String name = String.format("c.%d.%d.mcc", (regionX << 5) + (i & 31), (regionZ << 5) + (i >> 5));
+            Path external = source.getFile().resolveSibling(name);
+            if (Files.exists(external)) {
+                Files.copy(external, target.resolveSibling(name), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+}
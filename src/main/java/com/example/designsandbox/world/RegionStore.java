@@ -0,0 +1,271 @@
+package com.example.designsandbox.world;
+
+import com.example.designsandbox.DesignSandboxPlugin;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-addressed store of built region files, shared by all sandboxes.
+ *
+ * Every region a build writes is hashed (SHA-256) and kept once under
+ * designs/blobs/ab/abcdef....mca. Sandboxes get a copy-on-write reflink of the blob, so identical
+ * regions take disk space once no matter how many sandboxes hold them. Each sandbox has a ledger
+ * in designs/refs listing the blob behind each of its regions; a blob no ledger mentions is
+ * deleted.
+ *
+ * Region files are rewritten in place by the server, so the store is only used where reflinks
+ * are available. Hardlinks would let one sandbox's edits leak into every other sandbox.
+ *
+ * Storing and reflinking a blob holds a lock for its hash, taken from a fixed set of stripes,
+ * so copies of different regions run in parallel. The store's own lock only guards the
+ * reference counts and ledgers, and a blob is only deleted under its hash lock.
+ */
+public class RegionStore {
+    private static final int LOCK_STRIPES = 64;
+
+    private final DesignSandboxPlugin plugin;
+    private final File blobFolder;
+    private final File refFolder;
+    private final boolean enabled;
+    private final Map<String, Integer> refCounts;
+    private final Map<String, Map<String, String>> ledgers;
+    private final Object[] blobLocks;
+
+    public RegionStore(DesignSandboxPlugin plugin, FileCloner cloner) {
+        this.plugin = plugin;
+        File root = new File(plugin.getServer().getWorldContainer(),
+            plugin.getConfig().getString("world.directory", "designs"));
+        this.blobFolder = new File(root, "blobs");
+        this.refFolder = new File(root, "refs");
+        this.refCounts = new HashMap<>();
+        this.ledgers = new HashMap<>();
+        this.blobLocks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            blobLocks[i] = new Object();
+        }
+
+        boolean wanted = plugin.getConfig().getBoolean("performance.dedup.enabled", true);
+        blobFolder.mkdirs();
+        refFolder.mkdirs();
+        this.enabled = wanted && cloner.detect(blobFolder.toPath()) == FileCloner.Strategy.REFLINK;
+        if (wanted && !enabled) {
+            plugin.getLogger().info("Region deduplication needs reflink support; sandboxes get their own copies.");
+        }
+
+        if (enabled) {
+            loadLedgers();
+            collectGarbage();
+        }
+    }
+
+    /**
+     * Checks if regions are stored deduplicated
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Moves a freshly built region into the store and reflinks it to its place in a sandbox
+     * @param built The region file written by the build, consumed by this call
+     * @return true if an identical region was already stored
+     */
+    public boolean materialize(String worldName, String regionName, Path built, Path target,
+                               FileCloner cloner) throws IOException {
+        String hash = hash(built);
+        File blob = blobFile(hash);
+
+        // Held across the reflink so a release cannot delete the blob underneath it
+        boolean existed;
+        String replaced;
+        synchronized (lockFor(hash)) {
+            existed = blob.exists();
+            if (existed) {
+                Files.delete(built);
+            } else {
+                blob.getParentFile().mkdirs();
+                Files.move(built, blob.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+            replaced = addReference(worldName, regionName, hash);
+
+            Files.deleteIfExists(target);
+            if (!cloner.copy(blob.toPath(), target)) {
+                plugin.getLogger().warning("Reflink from the region store failed; " + target + " is a full copy.");
+            }
+        }
+
+        // Taken after the lock above is let go, so two hash locks are never held at once
+        if (replaced != null) {
+            decrement(replaced);
+        }
+        return existed;
+    }
+
+    /**
+     * Drops every reference held by a sandbox, deleting blobs nothing else uses
+     */
+    public void release(String worldName) {
+        Map<String, String> ledger;
+        synchronized (this) {
+            ledger = ledgers.remove(worldName);
+            if (ledger == null) {
+                return;
+            }
+            new File(refFolder, worldName + ".txt").delete();
+        }
+        for (String hash : ledger.values()) {
+            decrement(hash);
+        }
+    }
+
+    /**
+     * Drops the reference of one sandbox region whose file was deleted, deleting the blob if
+     * nothing else uses it
+     */
+    public void release(String worldName, String regionName) throws IOException {
+        String hash;
+        synchronized (this) {
+            Map<String, String> ledger = ledgers.get(worldName);
+            hash = ledger != null ? ledger.remove(regionName) : null;
+            if (hash == null) {
+                return;
+            }
+            writeLedger(worldName, ledger);
+        }
+        decrement(hash);
+    }
+
+    /**
+     * Points a sandbox region at a blob and counts the new reference
+     * @return The blob the region used before, whose reference the caller must drop, or null
+     */
+    private synchronized String addReference(String worldName, String regionName, String hash) throws IOException {
+        Map<String, String> ledger = ledgers.computeIfAbsent(worldName, name -> new LinkedHashMap<>());
+        String previous = ledger.put(regionName, hash);
+        if (hash.equals(previous)) {
+            return null;
+        }
+        refCounts.merge(hash, 1, Integer::sum);
+        writeLedger(worldName, ledger);
+        return previous;
+    }
+
+    /**
+     * Drops a reference to a blob, deleting the blob once nothing refers to it
+     */
+    private void decrement(String hash) {
+        synchronized (lockFor(hash)) {
+            boolean unused;
+            synchronized (this) {
+                int count = refCounts.merge(hash, -1, Integer::sum);
+                unused = count <= 0;
+                if (unused) {
+                    refCounts.remove(hash);
+                }
+            }
+            if (unused) {
+                blobFile(hash).delete();
+            }
+        }
+    }
+
+    private Object lockFor(String hash) {
+        return blobLocks[Math.floorMod(hash.hashCode(), LOCK_STRIPES)];
+    }
+
+    private void writeLedger(String worldName, Map<String, String> ledger) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, String> entry : ledger.entrySet()) {
+            lines.add(entry.getKey() + " " + entry.getValue());
+        }
+        Path file = new File(refFolder, worldName + ".txt").toPath();
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(temporary, lines, StandardCharsets.UTF_8);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void loadLedgers() {
+        File[] files = refFolder.listFiles((dir, name) -> name.endsWith(".txt"));
+        if (files == null) return;
+
+        for (File file : files) {
+            String worldName = file.getName().substring(0, file.getName().length() - 4);
+            Map<String, String> ledger = new LinkedHashMap<>();
+            try {
+                for (String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+                    String[] parts = line.split(" ");
+                    if (parts.length == 2) {
+                        ledger.put(parts[0], parts[1]);
+                        refCounts.merge(parts[1], 1, Integer::sum);
+                    }
+                }
+            } catch (IOException e) {
+                plugin.getLogger().warning("Failed to read region ledger " + file.getName() + ": " + e.getMessage());
+            }
+            ledgers.put(worldName, ledger);
+        }
+    }
+
+    /**
+     * Deletes blobs no sandbox refers to, such as those left by a crash between store and ledger
+     */
+    private synchronized void collectGarbage() {
+        File[] shards = blobFolder.listFiles(File::isDirectory);
+        if (shards == null) return;
+
+        int deleted = 0;
+        for (File shard : shards) {
+            File[] blobs = shard.listFiles();
+            if (blobs == null) continue;
+            for (File blob : blobs) {
+                String hash = blob.getName().replace(".mca", "");
+                if (!refCounts.containsKey(hash) && blob.delete()) {
+                    deleted++;
+                }
+            }
+        }
+        if (deleted > 0) {
+            plugin.getLogger().info("Removed " + deleted + " unused regions from the region store.");
+        }
+    }
+
+    private File blobFile(String hash) {
+        return new File(new File(blobFolder, hash.substring(0, 2)), hash + ".mca");
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            while (in.read(buffer) != -1) {
+                // Digest is updated as the stream is read
+            }
+        }
+
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.designsandbox.world;
+
+import com.example.designsandbox.DesignSandboxPlugin;
+import org.bukkit.World;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerChangedWorldEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unloads sandbox worlds nobody is using, least recently used first.
+ *
+ * A sandbox is active while a player is in it. Empty sandboxes are unloaded once they have been
+ * idle for maintenance.unload.timeout minutes, or earlier when more than
+ * maintenance.unload.max-loaded sandboxes are loaded or heap use goes over
+ * maintenance.unload.max-heap-percent. At most one world is unloaded every
+ * maintenance.unload.spacing ticks so their saves do not pile onto the same tick.
+ *
+ * Runs on the main thread only.
+ */
+public class SandboxIdleTracker implements Listener {
+    private final DesignSandboxPlugin plugin;
+    private final Map<String, Long> lastActive;
+    private final Deque<String> unloadQueue;
+    private final long timeoutMillis;
+    private final int maxLoaded;
+    private final double maxHeapPercent;
+
+    public SandboxIdleTracker(DesignSandboxPlugin plugin) {
+        this.plugin = plugin;
+        this.lastActive = new HashMap<>();
+        this.unloadQueue = new ArrayDeque<>();
+        this.timeoutMillis = plugin.getConfig().getLong("maintenance.unload.timeout", 10) * 60_000L;
+        this.maxLoaded = plugin.getConfig().getInt("maintenance.unload.max-loaded", 20);
+        this.maxHeapPercent = plugin.getConfig().getDouble("maintenance.unload.max-heap-percent", 85);
+    }
+
+    /**
+     * Starts the idle checks and the unload queue
+     */
+    public void start() {
+        long checkInterval = Math.max(1, plugin.getConfig().getLong("maintenance.unload.check-interval", 30)) * 20L;
+        long spacing = Math.max(1, plugin.getConfig().getLong("maintenance.unload.spacing", 20));
+
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                sweep();
+            }
+        }.runTaskTimer(plugin, checkInterval, checkInterval);
+
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                unloadNext();
+            }
+        }.runTaskTimer(plugin, spacing, spacing);
+    }
+
+    /**
+     * Records activity in a sandbox world
+     */
+    public void touch(World world) {
+        if (world != null && plugin.getWorldManager().isSandboxWorld(world)) {
+            lastActive.put(world.getName(), System.currentTimeMillis());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onChangedWorld(PlayerChangedWorldEvent event) {
+        touch(event.getFrom());
+        touch(event.getPlayer().getWorld());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        touch(event.getPlayer().getWorld());
+    }
+
+    /**
+     * Finds sandboxes to unload and queues them, oldest first
+     */
+    private void sweep() {
+        long now = System.currentTimeMillis();
+        Set<String> loaded = new HashSet<>();
+        List<World> empty = new ArrayList<>();
+        for (World world : plugin.getServer().getWorlds()) {
+            // Ready pool worlds are meant to stay loaded
+            if (!plugin.getWorldManager().isSandboxWorld(world)
+                    || plugin.getWorldManager().isPooledWorld(world.getName())) continue;
+            loaded.add(world.getName());
+            if (world.getPlayers().isEmpty()) {
+                lastActive.putIfAbsent(world.getName(), now);
+                empty.add(world);
+            } else {
+                lastActive.put(world.getName(), now);
+            }
+        }
+        lastActive.keySet().retainAll(loaded);
+
+        empty.sort(Comparator.comparingLong(world -> lastActive.get(world.getName())));
+        int excess = loaded.size() - unloadQueue.size() - maxLoaded;
+        boolean memoryPressure = heapUsedPercent() > maxHeapPercent;
+
+        for (World world : empty) {
+            String name = world.getName();
+            if (unloadQueue.contains(name)) continue;
+
+            boolean idle = now - lastActive.get(name) >= timeoutMillis;
+            if (idle || excess > 0 || memoryPressure) {
+                unloadQueue.addLast(name);
+                excess--;
+                // Under memory pressure free one world per sweep and look again
+                memoryPressure = false;
+            }
+        }
+    }
+
+    /**
+     * Unloads the next queued world if it is still empty
+     */
+    private void unloadNext() {
+        String name = unloadQueue.pollFirst();
+        if (name == null) {
+            return;
+        }
+
+        World world = plugin.getServer().getWorld(name);
+        if (world == null || !world.getPlayers().isEmpty()) {
+            return;
+        }
+        if (plugin.getWorldManager().unloadSandbox(name)) {
+            lastActive.remove(name);
+            plugin.getLogger().info("Unloaded idle sandbox world " + name);
+        }
+    }
+
+    private static double heapUsedPercent() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        return used * 100.0 / runtime.maxMemory();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.designsandbox.world;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Metadata stored in each sandbox folder (sandbox.yml) describing how it was built
+ */
+public class SandboxInfo {
+    private static final String FILE_NAME = "sandbox.yml";
+
+    private final String sourceWorld;
+    private final int centerX;
+    private final int centerZ;
+    private final int radius;
+    private final long createdAt;
+    /** The chunk generator the world was created with, or null for the default one */
+    private final String generator;
+
+    public SandboxInfo(String sourceWorld, int centerX, int centerZ, int radius, long createdAt,
+                       String generator) {
+        this.sourceWorld = sourceWorld;
+        this.centerX = centerX;
+        this.centerZ = centerZ;
+        this.radius = radius;
+        this.createdAt = createdAt;
+        this.generator = generator;
+    }
+
+    /**
+     * Loads the metadata of a sandbox folder
+     * @return The metadata, or null if the folder has none
+     */
+    public static SandboxInfo load(File worldFolder) {
+        File file = new File(worldFolder, FILE_NAME);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        YamlConfiguration yaml = YamlConfiguration.loadConfiguration(file);
+        String sourceWorld = yaml.getString("source-world");
+        if (sourceWorld == null) {
+            return null;
+        }
+        return new SandboxInfo(sourceWorld, yaml.getInt("center.x"), yaml.getInt("center.z"),
+            yaml.getInt("radius"), yaml.getLong("created-at"), yaml.getString("generator"));
+    }
+
+    /**
+     * Writes the metadata into a sandbox folder
+     */
+    public void save(File worldFolder) throws IOException {
+        YamlConfiguration yaml = new YamlConfiguration();
+        yaml.set("source-world", sourceWorld);
+        yaml.set("center.x", centerX);
+        yaml.set("center.z", centerZ);
+        yaml.set("radius", radius);
+        yaml.set("created-at", createdAt);
+        yaml.set("generator", generator);
+        yaml.save(new File(worldFolder, FILE_NAME));
+    }
+
+    public String getSourceWorld() {
+        return sourceWorld;
+    }
+
+    public int getCenterX() {
+        return centerX;
+    }
+
+    public int getCenterZ() {
+        return centerZ;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getGenerator() {
+        return generator;
+    }
+}
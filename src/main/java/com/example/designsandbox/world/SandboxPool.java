@@ -0,0 +1,141 @@
+package com.example.designsandbox.world;
+
+import com.example.designsandbox.DesignSandboxPlugin;
+import com.onarandombox.MultiverseCore.api.MVWorldManager;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.WorldType;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitRunnable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * Keeps a number of empty sandbox worlds created, loaded and configured ahead of time.
+ *
+ * When a player enters for the first time they are given one of these worlds and their regions
+ * are streamed into it, so Multiverse world creation and setupWorld are off the enter path. The
+ * pool refills one world at a time, and only while the average tick time is below
+ * pool.refill-max-mspt. Assignments are kept in pool.yml so players get the same world back.
+ * Pooled worlds are created as overworlds and are only handed out for overworld sources. A world
+ * whose build fails is taken back from the player and deleted.
+ */
+public class SandboxPool {
+    private static final String FILE_NAME = "pool.yml";
+
+    private final DesignSandboxPlugin plugin;
+    private final MVWorldManager mvWorldManager;
+    private final PoolAssignments assignments;
+    private final int size;
+    private final double refillMaxMspt;
+
+    public SandboxPool(DesignSandboxPlugin plugin, MVWorldManager mvWorldManager) {
+        this.plugin = plugin;
+        this.mvWorldManager = mvWorldManager;
+        this.assignments = new PoolAssignments(new File(plugin.getDataFolder(), FILE_NAME));
+        this.size = Math.max(0, plugin.getConfig().getInt("pool.size", 2));
+        this.refillMaxMspt = plugin.getConfig().getDouble("pool.refill-max-mspt", 40);
+    }
+
+    /**
+     * Starts the background refill check
+     */
+    public void start() {
+        int interval = Math.max(20, plugin.getConfig().getInt("pool.check-interval", 200));
+        new BukkitRunnable() {
+            @Override
+            public void run() {
+                refill();
+            }
+        }.runTaskTimer(plugin, interval, interval);
+    }
+
+    /**
+     * Gets the pooled world assigned to a player, or null if they have none
+     */
+    public String getAssignedWorld(UUID playerId) {
+        return assignments.getAssignedWorld(playerId);
+    }
+
+    /**
+     * Gets the player a pooled world was assigned to, or null if it is not assigned
+     */
+    public UUID getAssignedPlayer(String worldName) {
+        return assignments.getAssignedPlayer(worldName);
+    }
+
+    /**
+     * Takes a ready world from the pool and assigns it to a player
+     * @return The world name, or null if the pool is empty
+     */
+    public String claim(Player player) {
+        try {
+            // Skip worlds that were removed from Multiverse behind our back
+            return assignments.claim(player.getUniqueId(), worldName -> Bukkit.getWorld(worldName) != null);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save sandbox pool: " + e.getMessage());
+            return assignments.getAssignedWorld(player.getUniqueId());
+        }
+    }
+
+    /**
+     * Takes a world back from its player after its build failed or was cancelled. The world is
+     * not handed out again, the caller deletes it.
+     */
+    public void release(String worldName) {
+        try {
+            assignments.release(worldName);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save sandbox pool: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Creates one pooled world if the pool is short and the server has time to spare
+     */
+    private void refill() {
+        if (assignments.getAvailableCount() >= size || Bukkit.getAverageTickTime() > refillMaxMspt) {
+            return;
+        }
+
+        String prefix = plugin.getConfig().getString("world.name-prefix", "design_");
+        String worldName = prefix + "pool_" + UUID.randomUUID().toString().substring(0, 8);
+        if (!mvWorldManager.addWorld(worldName, World.Environment.NORMAL, null, WorldType.NORMAL,
+                false, plugin.getName())) {
+            plugin.getLogger().warning("Failed to create pooled sandbox world " + worldName);
+            return;
+        }
+
+        plugin.getWorldManager().setupWorld(worldName);
+        try {
+            assignments.add(worldName);
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to save sandbox pool: " + e.getMessage());
+        }
+        plugin.getLogger().info("Added " + worldName + " to the sandbox pool ("
+            + assignments.getAvailableCount() + "/" + size + ")");
+    }
+
+    /**
+     * Checks if a world is waiting in the pool to be assigned
+     */
+    public boolean isAvailable(String worldName) {
+        return assignments.isAvailable(worldName);
+    }
+
+    /**
+     * Checks if a pooled world has been given to a player
+     */
+    public boolean isAssigned(String worldName) {
+        return assignments.isAssigned(worldName);
+    }
+
+    /**
+     * Gets the number of ready worlds
+     */
+    public int getAvailableCount() {
+        return assignments.getAvailableCount();
+    }
+}
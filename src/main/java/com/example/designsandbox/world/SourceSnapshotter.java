@@ -0,0 +1,161 @@
+package com.example.designsandbox.world;
+
+import com.example.designsandbox.DesignSandboxPlugin;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Makes sure the source world is on disk before a sandbox copy reads it, without a full world
+ * save for every build.
+ *
+ * A save is skipped when no chunk inside the requested radius is loaded (unloaded chunks were
+ * written when they unloaded) or when the world was saved within performance.snapshot.max-age
+ * seconds. The latter trades freshness for fewer saves: blocks changed since that save are not
+ * in the copy, so max-age is the most a sandbox can lag behind its source. Requests for the same
+ * world within performance.snapshot.coalesce-ticks share one save.
+ *
+ * Paper has no public per-chunk save, so the save is still World.save(), which stalls the tick
+ * for every dirty chunk of the world. It only queues the chunk writes on Paper's region I/O
+ * threads, so the copy is held back until the region files of the requested areas have stopped
+ * changing for performance.snapshot.settle-millis. Paper has no public flush to wait on either.
+ *
+ * All methods must be called on the main thread.
+ */
+public class SourceSnapshotter {
+    private final DesignSandboxPlugin plugin;
+    private final Map<String, Batch> pending;
+    private final Map<String, Long> lastSaves;
+    private final int coalesceTicks;
+    private final long maxAgeMillis;
+    private final long settleMillis;
+    private final long settleTimeoutMillis;
+
+    public SourceSnapshotter(DesignSandboxPlugin plugin) {
+        this.plugin = plugin;
+        this.pending = new HashMap<>();
+        this.lastSaves = new HashMap<>();
+        this.coalesceTicks = Math.max(1, plugin.getConfig().getInt("performance.snapshot.coalesce-ticks", 10));
+        this.maxAgeMillis = plugin.getConfig().getLong("performance.snapshot.max-age", 10) * 1000;
+        this.settleMillis = Math.max(0, plugin.getConfig().getLong("performance.snapshot.settle-millis", 200));
+        this.settleTimeoutMillis = Math.max(settleMillis, plugin.getConfig().getLong("performance.snapshot.settle-timeout-millis", 5000));
+    }
+
+    /**
+     * Requests that the area of a build is saved to disk
+     * @return A future completed on the main thread once the area can be copied
+     */
+    public CompletableFuture<Void> request(World world, RegionCalculator calculator) {
+        if (!hasLoadedChunks(world, calculator)) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        Long lastSave = lastSaves.get(world.getName());
+        if (maxAgeMillis > 0 && lastSave != null && System.currentTimeMillis() - lastSave < maxAgeMillis) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Join the save already scheduled for this world, or schedule one
+        Batch batch = pending.get(world.getName());
+        if (batch == null) {
+            batch = new Batch();
+            pending.put(world.getName(), batch);
+            String worldName = world.getName();
+            plugin.getServer().getScheduler().runTaskLater(plugin, () -> flush(worldName), coalesceTicks);
+        }
+        batch.watch(world, calculator);
+        return batch.future;
+    }
+
+    private void flush(String worldName) {
+        Batch batch = pending.remove(worldName);
+        World world = Bukkit.getWorld(worldName);
+        try {
+            if (world != null) {
+                world.save();
+                lastSaves.put(worldName, System.currentTimeMillis());
+            }
+        } catch (RuntimeException e) {
+            batch.future.completeExceptionally(e);
+            return;
+        }
+
+        if (world == null || settleMillis == 0) {
+            batch.future.complete(null);
+            return;
+        }
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            awaitWrites(batch.files);
+            plugin.getServer().getScheduler().runTask(plugin, () -> batch.future.complete(null));
+        });
+    }
+
+    /**
+     * Waits until the size and modification time of every file stay the same for settle-millis,
+     * or until settle-timeout-millis have passed
+     */
+    private void awaitWrites(Set<File> files) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(settleTimeoutMillis);
+        Map<File, List<Long>> last = stamp(files);
+        try {
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(settleMillis);
+                Map<File, List<Long>> now = stamp(files);
+                if (now.equals(last)) {
+                    return;
+                }
+                last = now;
+            }
+            plugin.getLogger().warning("Region files were still being written " + settleTimeoutMillis
+                + "ms after saving the source world; copying anyway");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Map<File, List<Long>> stamp(Set<File> files) {
+        Map<File, List<Long>> stamps = new HashMap<>();
+        for (File file : files) {
+            stamps.put(file, List.of(file.length(), file.lastModified()));
+        }
+        return stamps;
+    }
+
+    /**
+     * Checks if any loaded chunk of the world lies inside the build radius
+     */
+    private boolean hasLoadedChunks(World world, RegionCalculator calculator) {
+        for (Chunk chunk : world.getLoadedChunks()) {
+            if (calculator.isChunkInRadius(chunk.getX(), chunk.getZ())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds sharing one save, and the region files they are going to copy
+     */
+    private static final class Batch {
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private final Set<File> files = new HashSet<>();
+
+        private void watch(World world, RegionCalculator calculator) {
+            File data = WorldCopyTask.getDataFolder(world.getWorldFolder(), world.getEnvironment());
+            for (RegionCalculator.RegionCoordinate region : calculator.getRegions()) {
+                for (String folder : new String[] { "region", "entities", "poi" }) {
+                    files.add(new File(new File(data, folder), region.getFileName()));
+                }
+            }
+        }
+    }
+}
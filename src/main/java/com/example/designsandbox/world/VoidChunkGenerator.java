@@ -0,0 +1,23 @@
+package com.example.designsandbox.world;
+
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.generator.ChunkGenerator;
+
+import java.util.Random;
+
+/**
+ * Generates empty chunks for pooled sandbox worlds.
+ *
+ * The spawn point is placed far away from any build so the spawn chunks the server loads when
+ * the world is created never share a region file with the regions streamed in later.
+ */
+public class VoidChunkGenerator extends ChunkGenerator {
+    /** Spawn coordinate of an unassigned pool world, well outside any copied radius */
+    private static final int SPAWN_COORDINATE = 25_000_000;
+
+    @Override
+    public Location getFixedSpawnLocation(World world, Random random) {
+        return new Location(world, SPAWN_COORDINATE, 64, SPAWN_COORDINATE);
+    }
+}
@@ -1,57 +1,181 @@
 package com.example.designsandbox.world;
 
 import com.example.designsandbox.DesignSandboxPlugin;
+import com.example.designsandbox.metrics.Metrics;
+import com.example.designsandbox.metrics.RegionCopyEvent;
+import com.example.designsandbox.metrics.SandboxBuildEvent;
+import com.example.designsandbox.metrics.SourceSaveEvent;
+import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import java.io.*;
 import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
 
 public class WorldCopyTask {
     private final DesignSandboxPlugin plugin;
     private final Player player;
+    /** The owner of the sandbox, also known when resuming a build without its player */
+    private final UUID owner;
     private final World sourceWorld;
     private final String targetWorldName;
     private final RegionCalculator regionCalculator;
     private final CompletableFuture<Boolean> future;
-    private int progress;
-    private int totalFiles;
+    private final AtomicInteger progress;
+    private final File sourceWorldFolder;
+    private final File targetWorldFolder;
+    private final List<RegionFolder> folders;
+    private final RegionFolder regionFolder;
+    private final boolean chunkMode;
+    private final boolean compact;
+    private final boolean lazy;
+    private final boolean liveTarget;
+    /** Whether the target was created by the warm pool, with the void generator */
+    private final boolean pooled;
+    private final boolean verify;
+    private final boolean update;
+    private final int weight;
+    /** Set once the build starts running or is cancelled, whichever comes first */
+    private final AtomicBoolean claimed;
+    private final AtomicLong hashNanos;
+    private final AtomicInteger repairedRegions;
+    /** Regions the server created before they were copied, left for the next build */
+    private final AtomicInteger generatedRegions;
+    private volatile int totalFiles;
+    private volatile BuildJournal journal;
+    private volatile long queuedAt;
 
+    /**
+     * @param player The player to show progress to, or null when resuming a build after a restart
+     */
     public WorldCopyTask(DesignSandboxPlugin plugin, Player player, World sourceWorld, 
                         String targetWorldName, RegionCalculator regionCalculator) {
+        this(plugin, player, sourceWorld, targetWorldName, regionCalculator, false);
+    }
+
+    /**
+     * @param liveTarget true if the target world is already loaded, as with pooled worlds. Its
+     *                   level.dat is left alone and regions are moved into place atomically.
+     */
+    public WorldCopyTask(DesignSandboxPlugin plugin, Player player, World sourceWorld,
+                        String targetWorldName, RegionCalculator regionCalculator, boolean liveTarget) {
         this.plugin = plugin;
         this.player = player;
+        this.owner = player != null ? player.getUniqueId() : plugin.getWorldManager().getOwner(targetWorldName);
         this.sourceWorld = sourceWorld;
         this.targetWorldName = targetWorldName;
         this.regionCalculator = regionCalculator;
         this.future = new CompletableFuture<>();
-        this.progress = 0;
-        this.totalFiles = regionCalculator.getRegions().size() + 1; // +1 for level.dat
+        this.progress = new AtomicInteger();
+
+        File serverDir = plugin.getServer().getWorldContainer();
+        this.sourceWorldFolder = new File(serverDir, sourceWorld.getName());
+        this.targetWorldFolder = new File(serverDir, targetWorldName);
+        this.folders = createCopyPlan(sourceWorld.getEnvironment());
+        this.regionFolder = folders.get(folders.size() - 1);
+        this.totalFiles = regionCalculator.getRegions().size() * folders.size() + 1; // +1 for level.dat
+        this.chunkMode = "chunk".equalsIgnoreCase(plugin.getConfig().getString("performance.copy-mode", "chunk"));
+        this.compact = !"none".equalsIgnoreCase(plugin.getConfig().getString("performance.region-rewrite", "none"));
+        this.lazy = plugin.getConfig().getBoolean("world.lazy.enabled", false);
+        this.liveTarget = liveTarget;
+        this.pooled = liveTarget || plugin.getWorldManager().isPoolWorld(targetWorldName);
+        // Loaded worlds may change a region as soon as it is in place, so they are not verified
+        this.verify = !liveTarget && plugin.getConfig().getBoolean("performance.verify", true);
+        this.hashNanos = new AtomicLong();
+        this.repairedRegions = new AtomicInteger();
+        this.generatedRegions = new AtomicInteger();
+        // Sandboxes that already have regions only copy what changed
+        this.update = !liveTarget && regionFolder.target.isDirectory();
+        this.weight = plugin.getCopyScheduler().getWeight(player);
+        this.claimed = new AtomicBoolean();
+    }
+
+    /**
+     * Gets the folder holding the region, entities and poi folders of a world. Nether and end
+     * worlds keep them in a dimension folder.
+     */
+    static File getDataFolder(File worldFolder, World.Environment environment) {
+        String dimension = environment == World.Environment.NETHER ? "DIM-1"
+            : environment == World.Environment.THE_END ? "DIM1" : null;
+        return dimension != null ? new File(worldFolder, dimension) : worldFolder;
+    }
+
+    /**
+     * Lists the region-format folders to copy. Entities and POI files come before the region
+     * files, so a chunk that appears in a loaded sandbox already has its entities.
+     */
+    private List<RegionFolder> createCopyPlan(World.Environment environment) {
+        File sourceData = getDataFolder(sourceWorldFolder, environment);
+        File targetData = getDataFolder(targetWorldFolder, environment);
+
+        // All three folders store chunks the same way, so all of them can be recompressed
+        RegionFile.ChunkTransform recompress = "lz4".equalsIgnoreCase(plugin.getConfig().getString("performance.region-rewrite", "none"))
+            ? ChunkCodec.recompress(ChunkCodec.LZ4) : null;
+
+        List<RegionFolder> plan = new ArrayList<>();
+        for (String name : new String[] { "entities", "poi" }) {
+            String policy = plugin.getConfig().getString("world.folders." + name, "copy");
+            if (!"skip".equalsIgnoreCase(policy)) {
+                RegionFile.ChunkTransform strip = name.equals("entities")
+                    ? ChunkStripper.forEntities(plugin.getConfig()) : null;
+                plan.add(new RegionFolder(name, new File(sourceData, name), new File(targetData, name),
+                    chain(strip, recompress)));
+            }
+        }
+        plan.add(new RegionFolder("region", new File(sourceData, "region"), new File(targetData, "region"),
+            chain(ChunkStripper.forBlockEntities(plugin.getConfig()), recompress)));
+        return plan;
+    }
+
+    /**
+     * Runs two chunk transforms one after the other, either of which may be null
+     */
+    private static RegionFile.ChunkTransform chain(RegionFile.ChunkTransform first, RegionFile.ChunkTransform second) {
+        if (first == null) return second;
+        if (second == null) return first;
+        return chunk -> second.apply(first.apply(chunk));
     }
 
     /**
      * Starts the world copy process
      */
     public CompletableFuture<Boolean> start() {
-        // Save the source world to ensure all data is written to disk
-        sourceWorld.save();
-
-        // Start the copy process asynchronously
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                try {
-                    copyWorld();
-                    future.complete(true);
-                } catch (Exception e) {
-                    plugin.getLogger().severe("Failed to copy world: " + e.getMessage());
-                    e.printStackTrace();
+        // Make sure the area is on disk, then queue the copy on the plugin's copy threads
+        long requested = System.nanoTime();
+        SourceSaveEvent saveEvent = new SourceSaveEvent();
+        saveEvent.begin();
+        plugin.getSourceSnapshotter().request(sourceWorld, regionCalculator)
+            .whenComplete((saved, error) -> {
+                if (error != null) {
+                    // The area may not be on disk, so the build is not started
+                    plugin.getLogger().severe("Failed to save " + sourceWorld.getName() + " before copying it into "
+                        + targetWorldName + ": " + error.getMessage());
+                    plugin.getMetrics().recordBuild(false);
                     future.complete(false);
+                    return;
                 }
-            }
-        }.runTaskAsynchronously(plugin);
+                plugin.getMetrics().recordSince(Metrics.Phase.SAVE, requested);
+                if (saveEvent.shouldCommit()) {
+                    saveEvent.setSandbox(targetWorldName, owner);
+                    saveEvent.sourceWorld = sourceWorld.getName();
+                    saveEvent.commit();
+                }
+                queuedAt = System.nanoTime();
+                plugin.getCopyScheduler().submit(this);
+            });
 
         // Start progress updates
         startProgressUpdates();
@@ -59,79 +183,564 @@ public class WorldCopyTask {
         return future;
     }
 
+    /**
+     * Runs the copy on a build thread of the copy scheduler
+     */
+    void run() {
+        if (!claimed.compareAndSet(false, true)) {
+            return;
+        }
+        plugin.getMetrics().recordSince(Metrics.Phase.QUEUE, queuedAt);
+        long started = System.nanoTime();
+        SandboxBuildEvent event = new SandboxBuildEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            copyWorld();
+            plugin.getMetrics().recordSince(Metrics.Phase.COPY, started);
+            success = true;
+        } catch (Exception e) {
+            plugin.getLogger().severe("Failed to copy world: " + e.getMessage());
+            e.printStackTrace();
+            // Keep the journal so the next attempt resumes where this one stopped
+            closeJournal();
+        }
+
+        plugin.getMetrics().recordBuild(success);
+        if (event.shouldCommit()) {
+            event.setSandbox(targetWorldName, owner);
+            event.regions = regionCalculator.getRegions().size();
+            event.resumed = journal != null && journal.isResumed();
+            event.succeeded = success;
+            event.commit();
+        }
+        future.complete(success);
+    }
+
+    /**
+     * Cancels the build if it has not started copying yet
+     * @return false if it is already running or done
+     */
+    public boolean cancel() {
+        if (!claimed.compareAndSet(false, true)) {
+            return false;
+        }
+        plugin.getCopyScheduler().remove(this);
+        future.complete(false);
+        return true;
+    }
+
+    /**
+     * Gets the key the build queue groups builds by: the owner, or the world for resumed builds
+     */
+    String getOwnerKey() {
+        return player != null ? player.getUniqueId().toString() : targetWorldName;
+    }
+
+    /**
+     * Checks if the sandbox already exists and is only brought up to date
+     */
+    boolean isUpdate() {
+        return update;
+    }
+
+    /**
+     * Gets how many builds the owner may start per turn of the build queue
+     */
+    int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Counts a written file and reports it to a flight recording
+     */
+    private void recordCopy(RegionCopyEvent event, String file, long bytes) {
+        plugin.getMetrics().recordCopy(bytes);
+        if (event.shouldCommit()) {
+            event.setSandbox(targetWorldName, owner);
+            event.file = file;
+            event.bytes = bytes;
+            event.commit();
+        }
+    }
+
     /**
      * Copies the world files
      */
     private void copyWorld() throws IOException {
-        File serverDir = plugin.getServer().getWorldContainer();
-        File sourceWorldFolder = new File(serverDir, sourceWorld.getName());
-        File targetWorldFolder = new File(serverDir, targetWorldName);
+        long started = System.nanoTime();
 
         // Create target directories
         targetWorldFolder.mkdirs();
-        new File(targetWorldFolder, "region").mkdirs();
+        for (RegionFolder folder : folders) {
+            folder.target.mkdirs();
+        }
 
-        // Copy level.dat
-        copyFile(new File(sourceWorldFolder, "level.dat"),
-                new File(targetWorldFolder, "level.dat"));
+        // Record where the sandbox came from so it can be reset later. Pooled worlds were created
+        // with the void generator and keep it when they are reset or restored.
+        SandboxInfo previous = SandboxInfo.load(targetWorldFolder);
+        String generator = pooled ? plugin.getName() : previous != null ? previous.getGenerator() : null;
+        new SandboxInfo(sourceWorld.getName(), regionCalculator.getCenter().getBlockX(),
+            regionCalculator.getCenter().getBlockZ(), regionCalculator.getRadius(),
+            System.currentTimeMillis(), generator).save(targetWorldFolder);
+
+        // Regions finished before an interrupted run are kept if they are intact
+        journal = new BuildJournal(targetWorldFolder);
+        if (journal.isResumed()) {
+            plugin.getLogger().info("Resuming interrupted build of " + targetWorldName);
+        }
+
+        // Copy level.dat. A loaded world keeps its own, and so does a pooled world when it is
+        // reset: the source's would bring back its generator settings and spawn.
+        if (!liveTarget && generator == null) {
+            RegionCopyEvent event = new RegionCopyEvent();
+            event.begin();
+            long levelBytes = copyFile(new File(sourceWorldFolder, "level.dat"),
+                    new File(targetWorldFolder, "level.dat"));
+            recordCopy(event, "level.dat", levelBytes);
+            throttle(levelBytes);
+        }
         updateProgress();
 
-        // Copy region files
-        File sourceRegionFolder = new File(sourceWorldFolder, "region");
-        File targetRegionFolder = new File(targetWorldFolder, "region");
+        deleteStaleRegions();
 
+        // In lazy mode only the regions around the player are copied before the teleport, at
+        // least those within view distance so the player is not held back where they arrive
+        List<RegionCalculator.RegionCoordinate> now = new ArrayList<>();
+        List<RegionCalculator.RegionCoordinate> later = new ArrayList<>();
+        int initialRadius = plugin.getConfig().getInt("world.lazy.initial-radius", 1);
+        int viewDistance = plugin.getServer().getViewDistance();
+        Location center = regionCalculator.getCenter();
+        int centerX = center.getBlockX() >> 9;
+        int centerZ = center.getBlockZ() >> 9;
         for (RegionCalculator.RegionCoordinate region : regionCalculator.getRegions()) {
-            String fileName = region.getFileName();
-            File sourceRegion = new File(sourceRegionFolder, fileName);
-            File targetRegion = new File(targetRegionFolder, fileName);
+            boolean near = Math.abs(region.getX() - centerX) <= initialRadius
+                && Math.abs(region.getZ() - centerZ) <= initialRadius
+                || LazyRegionLoader.isWithinHoldBack(region, center.getX(), center.getZ(), viewDistance);
+            // Regions already on disk are updated in place and cannot wait until the world is loaded
+            if (lazy && !near && !new File(regionFolder.target, region.getFileName()).exists()) {
+                later.add(region);
+            } else {
+                now.add(region);
+            }
+        }
+        totalFiles = now.size() * folders.size() + 1;
+
+        // Regions copied whole are reflinked with one cp per folder instead of one per file
+        Set<String> cloned = cloneWholeRegions(now);
 
-            if (sourceRegion.exists()) {
-                copyFile(sourceRegion, targetRegion);
+        // Copy region files in parallel
+        ExecutorService executor = plugin.getCopyScheduler().getRegionExecutor();
+        List<CompletableFuture<?>> copies = new ArrayList<>();
+        for (RegionCalculator.RegionCoordinate region : now) {
+            for (RegionFolder folder : folders) {
+                CompletableFuture<Long> copy = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return copyRegion(folder, region, cloned);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor);
+
+                // Checking against the source runs next to the copies of the other regions. Transformed
+                // files differ from their source on purpose, so they are not checked.
+                copies.add(!verify || folder.transform != null ? copy : copy.thenAcceptAsync(hash -> {
+                    try {
+                        verifyRegion(folder, region, hash);
+                    } catch (IOException e) {
+                        throw new CompletionException(e);
+                    }
+                }, executor));
+            }
+        }
+
+        try {
+            CompletableFuture.allOf(copies.toArray(CompletableFuture<?>[]::new)).join();
+        } catch (CompletionException e) {
+            copies.forEach(copy -> copy.cancel(false));
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+
+        if (verify) {
+            plugin.getLogger().info("Verified " + copies.size() + " region files of " + targetWorldName + " in "
+                + (System.nanoTime() - started) / 1_000_000 + "ms (" + hashNanos.get() / 1_000_000
+                + "ms hashing across copy threads, " + repairedRegions.get() + " copied again)");
+        }
+
+        // The rest is materialized in the background, nearest to the player first
+        if (later.isEmpty()) {
+            finishJournal();
+        } else {
+            plugin.getLazyRegionLoader().track(this, later);
+        }
+    }
+
+    /**
+     * Deletes the journal once the lazily copied regions are done as well
+     */
+    void finishLazyRegions() {
+        try {
+            finishJournal();
+        } catch (IOException e) {
+            plugin.getLogger().warning("Failed to delete the build journal of " + targetWorldName + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the journal, unless regions the server created first still have to be copied. The
+     * kept journal makes the next load of the sandbox resume the build for those regions.
+     */
+    private void finishJournal() throws IOException {
+        if (generatedRegions.get() == 0) {
+            journal.finish();
+        } else {
+            journal.close();
+        }
+    }
+
+    /**
+     * Marks a region the server wrote to before it was copied, so the next build copies it again
+     */
+    void invalidateRegion(RegionCalculator.RegionCoordinate region) throws IOException {
+        for (RegionFolder folder : folders) {
+            invalidate(folder, region);
+        }
+    }
+
+    private void invalidate(RegionFolder folder, RegionCalculator.RegionCoordinate region) throws IOException {
+        generatedRegions.incrementAndGet();
+        journal.invalidate(folder.key(region));
+        plugin.getLogger().warning(folder.key(region) + " of " + targetWorldName + " was written by the server before it"
+            + " was copied; it is copied again the next time the sandbox is loaded");
+    }
+
+    /**
+     * Closes the journal without deleting it
+     */
+    void closeJournal() {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    /**
+     * Reflinks the regions that are copied as whole files, one cp process per folder
+     * @return The journal keys of the cloned regions
+     */
+    private Set<String> cloneWholeRegions(List<RegionCalculator.RegionCoordinate> regions) {
+        Set<String> cloned = new HashSet<>();
+        // Live targets need the temporary name, and the region store reflinks its own blobs
+        if (liveTarget || compact || plugin.getCopyScheduler().getRegionStore().isEnabled()) {
+            return cloned;
+        }
+
+        FileCloner cloner = plugin.getCopyScheduler().getCloner();
+        for (RegionFolder folder : folders) {
+            if (folder.transform != null || cloner.detect(folder.target.toPath()) != FileCloner.Strategy.REFLINK) {
+                continue;
+            }
+
+            List<Path> sources = new ArrayList<>();
+            List<String> keys = new ArrayList<>();
+            for (RegionCalculator.RegionCoordinate region : regions) {
+                File sourceRegion = new File(folder.source, region.getFileName());
+                if (chunkMode && !regionCalculator.isRegionFullyInRadius(region)
+                        || journal.isCompleted(folder.key(region))
+                        || !sourceRegion.exists()
+                        || new File(folder.target, region.getFileName()).exists()) {
+                    continue;
+                }
+                sources.add(sourceRegion.toPath());
+                keys.add(folder.key(region));
+            }
+            if (keys.isEmpty()) {
+                continue;
             }
-            updateProgress();
 
-            // Add delay between file operations if configured
-            int copyDelay = plugin.getConfig().getInt("performance.copy-delay", 50);
-            if (copyDelay > 0) {
-                try {
-                    Thread.sleep(copyDelay);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new IOException("World copy interrupted");
+            RegionCopyEvent event = new RegionCopyEvent();
+            event.begin();
+            if (cloner.reflinkAll(sources, folder.target.toPath())) {
+                cloned.addAll(keys);
+                // One event for the batch, the files are still counted one by one
+                recordCopy(event, folder.name, 0);
+                for (int i = 1; i < keys.size(); i++) {
+                    plugin.getMetrics().recordCopy(0);
                 }
             }
         }
+        return cloned;
+    }
+
+    /**
+     * Copies a single region file
+     * @param cloned The regions already reflinked by {@link #cloneWholeRegions}
+     * @return The content hash of the copied region
+     */
+    private long copyRegion(RegionFolder folder, RegionCalculator.RegionCoordinate region, Set<String> cloned) throws IOException {
+        File sourceRegion = new File(folder.source, region.getFileName());
+        File targetRegion = new File(folder.target, region.getFileName());
+
+        // A finished region is kept even if its file changed since, that is the player's work
+        Long completedHash = journal.getCompletedHash(folder.key(region));
+        if (completedHash != null) {
+            updateProgress();
+            return completedHash;
+        }
+
+        if (cloned.contains(folder.key(region))) {
+            long hash = hashRegion(region, targetRegion);
+            journal.record(folder.key(region), hash);
+            updateProgress();
+            return hash;
+        }
+
+        if (liveTarget) {
+            long hash = copyLazyFile(folder, region);
+            updateProgress();
+            return hash;
+        }
+
+        // An interrupted run may have left this region half written, or the server generated it
+        // before it was copied
+        if (journal.isResumed()) {
+            Files.deleteIfExists(targetRegion.toPath());
+        }
+
+        long bytes = 0;
+        RegionCopyEvent event = new RegionCopyEvent();
+        event.begin();
+        if (!sourceRegion.exists()) {
+            Files.deleteIfExists(targetRegion.toPath());
+            plugin.getCopyScheduler().getRegionStore().release(targetWorldName, folder.key(region));
+        } else if (targetRegion.exists()) {
+            bytes = resetRegion(folder, region, sourceRegion, targetRegion);
+            recordCopy(event, folder.key(region), bytes);
+        } else {
+            bytes = writeRegion(folder, region, sourceRegion, targetRegion);
+            recordCopy(event, folder.key(region), bytes);
+        }
+        long hash = hashRegion(region, targetRegion);
+        journal.record(folder.key(region), hash);
+        updateProgress();
+
+        // Pay for the bytes written so the shared disk budget is respected
+        throttle(bytes);
+        return hash;
+    }
+
+    /**
+     * Compares a copied region with its source and copies it again if they differ
+     */
+    private void verifyRegion(RegionFolder folder, RegionCalculator.RegionCoordinate region, long targetHash) throws IOException {
+        File sourceRegion = new File(folder.source, region.getFileName());
+        File targetRegion = new File(folder.target, region.getFileName());
+        // Finished by an earlier run, and the sandbox may have been played since
+        if (journal.isCompleted(folder.key(region)) || hashRegion(region, sourceRegion) == targetHash) {
+            return;
+        }
+
+        // A bad write, or the server saved the source after it was copied
+        repairedRegions.incrementAndGet();
+        Files.deleteIfExists(targetRegion.toPath());
+        long bytes = 0;
+        if (sourceRegion.exists()) {
+            RegionCopyEvent event = new RegionCopyEvent();
+            event.begin();
+            bytes = writeRegion(folder, region, sourceRegion, targetRegion);
+            recordCopy(event, folder.key(region), bytes);
+        } else {
+            plugin.getCopyScheduler().getRegionStore().release(targetWorldName, folder.key(region));
+        }
+        long hash = hashRegion(region, targetRegion);
+        journal.record(folder.key(region), hash);
+        throttle(bytes);
+
+        if (hash != hashRegion(region, sourceRegion)) {
+            plugin.getLogger().warning(folder.key(region) + " of " + targetWorldName + " still differs from its source after copying it again");
+        }
+    }
+
+    /**
+     * Hashes the chunks of a region file that belong to the sandbox
+     */
+    private long hashRegion(RegionCalculator.RegionCoordinate region, File file) throws IOException {
+        long started = System.nanoTime();
+        try {
+            return RegionFile.contentHash(file.toPath(), chunkFilter(region));
+        } finally {
+            hashNanos.addAndGet(System.nanoTime() - started);
+        }
+    }
+
+    /**
+     * Gets the filter selecting the chunks of a region that are copied
+     */
+    private IntPredicate chunkFilter(RegionCalculator.RegionCoordinate region) {
+        if (!chunkMode || regionCalculator.isRegionFullyInRadius(region)) {
+            return index -> true;
+        }
+        return regionCalculator.getChunkFilter(region);
+    }
+
+    /**
+     * Copies every file of a region into a sandbox that may already be loaded
+     */
+    void copyLazyRegion(RegionCalculator.RegionCoordinate region) throws IOException {
+        for (RegionFolder folder : folders) {
+            copyLazyFile(folder, region);
+        }
+    }
+
+    /**
+     * Copies a region file into a sandbox that may already be loaded. The file is written under a
+     * temporary name and hard linked into place, which fails instead of replacing a file the
+     * server has created in the meantime, so the server never sees a partial region and never
+     * loses an open one. A region the server created first is not recorded as finished, so the
+     * next build copies it again.
+     * @return The content hash of the file in place
+     */
+    private long copyLazyFile(RegionFolder folder, RegionCalculator.RegionCoordinate region) throws IOException {
+        String fileName = region.getFileName();
+        File sourceRegion = new File(folder.source, fileName);
+        File targetRegion = new File(folder.target, fileName);
+        if (!sourceRegion.exists()) {
+            long hash = hashRegion(region, targetRegion);
+            journal.record(folder.key(region), hash);
+            return hash;
+        }
+        if (targetRegion.exists()) {
+            invalidate(folder, region);
+            return hashRegion(region, targetRegion);
+        }
+
+        RegionCopyEvent event = new RegionCopyEvent();
+        event.begin();
+        File temporary = File.createTempFile(fileName, ".tmp", folder.target);
+        long bytes;
+        try {
+            bytes = writeRegion(folder, region, sourceRegion, temporary);
+            recordCopy(event, folder.key(region), bytes);
+            if (temporary.length() > 0) {
+                Files.createLink(targetRegion.toPath(), temporary.toPath());
+            }
+        } catch (FileAlreadyExistsException e) {
+            invalidate(folder, region);
+            return hashRegion(region, targetRegion);
+        } finally {
+            Files.deleteIfExists(temporary.toPath());
+        }
+        long hash = hashRegion(region, targetRegion);
+        journal.record(folder.key(region), hash);
+        throttle(bytes);
+        return hash;
+    }
+
+    /**
+     * Writes a fresh copy of a region
+     */
+    private long writeRegion(RegionFolder folder, RegionCalculator.RegionCoordinate region, File source, File target) throws IOException {
+        RegionStore store = plugin.getCopyScheduler().getRegionStore();
+        if (!store.isEnabled()) {
+            return buildRegion(folder, region, source, target);
+        }
+
+        // Build next to the target, then swap it for a reflink of the shared copy
+        File built = File.createTempFile(region.getFileName(), ".build", folder.target);
+        long bytes = buildRegion(folder, region, source, built);
+        if (built.length() == 0) {
+            Files.deleteIfExists(built.toPath());
+            return bytes;
+        }
+        store.materialize(targetWorldName, folder.key(region), built.toPath(), target.toPath(),
+            plugin.getCopyScheduler().getCloner());
+        return bytes;
+    }
+
+    private long buildRegion(RegionFolder folder, RegionCalculator.RegionCoordinate region, File source, File target) throws IOException {
+        // Transformed chunks have to be rewritten, and compacting packs every region, so the
+        // file cannot be cloned
+        if (folder.transform != null || compact) {
+            return RegionFile.copyChunks(source.toPath(), target.toPath(), chunkFilter(region), folder.transform);
+        }
+        if (chunkMode && !regionCalculator.isRegionFullyInRadius(region)) {
+            return copyRegionChunks(region, source, target);
+        }
+        return copyFile(source, target);
+    }
+
+    /**
+     * Waits on the shared I/O throttle after a file operation
+     */
+    private void throttle(long bytes) throws IOException {
+        try {
+            plugin.getCopyScheduler().getThrottle().acquire(bytes);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("World copy interrupted");
+        }
     }
 
     /**
      * Copies a file with progress tracking
+     * @return The number of bytes copied
      */
-    private void copyFile(File source, File target) throws IOException {
-        if (!source.exists()) return;
+    private long copyFile(File source, File target) throws IOException {
+        if (!source.exists()) return 0;
 
-        // Use NIO for efficient file copying
-        Files.copy(source.toPath(), target.toPath(), 
-                  StandardCopyOption.REPLACE_EXISTING,
-                  StandardCopyOption.COPY_ATTRIBUTES);
+        // Reflinks share the source extents, so they cost no data I/O
+        if (plugin.getCopyScheduler().getCloner().copy(source.toPath(), target.toPath())) {
+            return 0;
+        }
+        return target.length();
     }
 
     /**
-     * Updates the progress counter and sends feedback
+     * Copies only the chunks of a region that lie within the radius
      */
-    private void updateProgress() {
-        progress++;
-        int percentage = (progress * 100) / totalFiles;
+    private long copyRegionChunks(RegionCalculator.RegionCoordinate region, File source, File target) throws IOException {
+        return RegionFile.copyChunks(source.toPath(), target.toPath(), chunkFilter(region));
+    }
 
-        // Send progress message to player
-        String message = plugin.getConfig().getString("messages.world-creating", "Creating your sandbox world... ({progress}%)");
-        message = message.replace("{progress}", String.valueOf(percentage));
-        
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                player.sendActionBar(message);
+    /**
+     * Updates a region left over from an earlier build, touching only the chunks that changed
+     */
+    private long resetRegion(RegionFolder folder, RegionCalculator.RegionCoordinate region, File source, File target) throws IOException {
+        // A whole-file copy that neither side has written since is identical
+        if (folder.transform == null && source.length() == target.length()
+            && source.lastModified() == target.lastModified()) {
+            return 0;
+        }
+
+        return RegionFile.applyDelta(source.toPath(), target.toPath(), chunkFilter(region), folder.transform);
+    }
+
+    /**
+     * Removes region files of an earlier build that fall outside the current radius
+     */
+    private void deleteStaleRegions() throws IOException {
+        Set<String> wanted = new HashSet<>();
+        for (RegionCalculator.RegionCoordinate region : regionCalculator.getRegions()) {
+            wanted.add(region.getFileName());
+        }
+
+        for (RegionFolder folder : folders) {
+            File[] files = folder.target.listFiles((dir, name) -> name.startsWith("r.") && name.endsWith(".mca"));
+            if (files == null) continue;
+            for (File file : files) {
+                if (!wanted.contains(file.getName())) {
+                    Files.deleteIfExists(file.toPath());
+                    plugin.getCopyScheduler().getRegionStore().release(targetWorldName, folder.key(file.getName()));
+                }
             }
-        }.runTask(plugin);
+        }
+    }
+
+    /**
+     * Updates the progress counter
+     */
+    private void updateProgress() {
+        progress.incrementAndGet();
     }
 
     /**
@@ -142,20 +751,42 @@ public class WorldCopyTask {
         new BukkitRunnable() {
             @Override
             public void run() {
-                if (future.isDone()) {
+                if (future.isDone() || player == null) {
                     cancel();
                     return;
                 }
 
-                int percentage = (progress * 100) / totalFiles;
-                String message = plugin.getConfig().getString("messages.world-creating", 
-                    "Creating your sandbox world... ({progress}%)");
-                message = message.replace("{progress}", String.valueOf(percentage));
+                // Show the queue position until a build slot is free
+                int position = plugin.getCopyScheduler().getQueuePosition(WorldCopyTask.this);
+                String message;
+                if (position > 0) {
+                    message = plugin.getConfig().getString("messages.world-queued",
+                        "Waiting to create your sandbox world... (position {position})")
+                        .replace("{position}", String.valueOf(position));
+                } else {
+                    message = plugin.getConfig().getString("messages.world-creating",
+                        "Creating your sandbox world... ({progress}%)")
+                        .replace("{progress}", String.valueOf(getProgress()));
+                }
                 player.sendActionBar(message);
             }
         }.runTaskTimer(plugin, 0, interval);
     }
 
+    /**
+     * Gets the name of the sandbox world being built
+     */
+    public String getTargetWorldName() {
+        return targetWorldName;
+    }
+
+    /**
+     * Gets the region calculator of this build
+     */
+    public RegionCalculator getRegionCalculator() {
+        return regionCalculator;
+    }
+
     /**
      * Gets the future that will complete when the copy is done
      */
@@ -167,6 +798,35 @@ public class WorldCopyTask {
      * Gets the current progress percentage
      */
     public int getProgress() {
-        return (progress * 100) / totalFiles;
+        return (progress.get() * 100) / totalFiles;
+    }
+
+    /**
+     * A folder of region-format files copied chunk by chunk: region, entities or poi
+     */
+    private static final class RegionFolder {
+        private final String name;
+        private final File source;
+        private final File target;
+        /** Applied to every chunk copied into the sandbox, or null to copy chunks as they are */
+        private final RegionFile.ChunkTransform transform;
+
+        private RegionFolder(String name, File source, File target, RegionFile.ChunkTransform transform) {
+            this.name = name;
+            this.source = source;
+            this.target = target;
+            this.transform = transform;
+        }
+
+        /**
+         * Gets the name of a file of this folder in the journal and the region store
+         */
+        private String key(RegionCalculator.RegionCoordinate region) {
+            return key(region.getFileName());
+        }
+
+        private String key(String fileName) {
+            return name + "/" + fileName;
+        }
     }
-} 
\ No newline at end of file
+}
@@ -1,38 +1,117 @@
 package com.example.designsandbox.world;
 
 import com.example.designsandbox.DesignSandboxPlugin;
+import com.example.designsandbox.metrics.Metrics;
+import com.example.designsandbox.metrics.WorldRegisterEvent;
+import com.example.designsandbox.metrics.WorldUnloadEvent;
 import com.onarandombox.MultiverseCore.api.MVWorldManager;
 import com.onarandombox.MultiverseCore.api.MultiverseWorld;
 import org.bukkit.*;
 import org.bukkit.entity.Player;
 
 import java.io.File;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
 
 public class WorldManager {
     private final DesignSandboxPlugin plugin;
     private final MVWorldManager mvWorldManager;
     private final Map<UUID, String> playerWorlds;
     private final Map<String, WorldCopyTask> activeCopyTasks;
+    /** Builds, restores and resets in progress, which other requests for the same world join */
+    private final Map<String, CompletableFuture<Boolean>> pendingWorlds;
+    private final SandboxPool pool;
+    private final ColdStorage coldStorage;
 
     public WorldManager(DesignSandboxPlugin plugin) {
         this.plugin = plugin;
         this.mvWorldManager = plugin.getMultiverseCore().getMVWorldManager();
-        this.playerWorlds = new HashMap<>();
-        this.activeCopyTasks = new HashMap<>();
+        this.playerWorlds = new ConcurrentHashMap<>();
+        this.activeCopyTasks = new ConcurrentHashMap<>();
+        this.pendingWorlds = new ConcurrentHashMap<>();
         
         // Create the designs directory if it doesn't exist
         String designsPath = plugin.getConfig().getString("world.directory", "designs");
         new File(plugin.getServer().getWorldContainer(), designsPath).mkdirs();
+
+        // Keep empty worlds ready for first-time players
+        this.pool = plugin.getConfig().getBoolean("pool.enabled", false)
+            ? new SandboxPool(plugin, mvWorldManager) : null;
+
+        // Archived sandboxes are restored even while archiving is switched off
+        this.coldStorage = new ColdStorage(plugin, mvWorldManager);
+    }
+
+    /**
+     * Starts background work that needs the plugin to be fully enabled
+     */
+    public void start() {
+        if (pool != null) {
+            pool.start();
+        }
+        if (plugin.getConfig().getBoolean("maintenance.cold-storage.enabled", false)) {
+            coldStorage.start();
+        }
+        resumeBuilds();
+    }
+
+    /**
+     * Resumes builds interrupted by a restart, copying only the regions they had not finished
+     */
+    private void resumeBuilds() {
+        String prefix = plugin.getConfig().getString("world.name-prefix", "design_");
+        File[] folders = plugin.getServer().getWorldContainer().listFiles(file ->
+            file.isDirectory() && file.getName().startsWith(prefix) && BuildJournal.exists(file));
+        if (folders == null) return;
+
+        for (File folder : folders) {
+            String worldName = folder.getName();
+            // Pooled worlds are filled while loaded; other sandboxes must be unloaded first
+            boolean liveTarget = pool != null && pool.isAssigned(worldName);
+            if (!liveTarget && Bukkit.getWorld(worldName) != null && !unload(worldName, true)) {
+                plugin.getLogger().warning("Cannot resume the build of " + worldName + ": the world could not be unloaded");
+                continue;
+            }
+            singleFlight(worldName, () -> resumeBuild(null, folder, liveTarget));
+        }
+    }
+
+    /**
+     * Resumes the interrupted build in a sandbox folder, copying only the regions it had not
+     * finished
+     * @param player The owner, or null when nobody is waiting for the world
+     */
+    private CompletableFuture<Boolean> resumeBuild(Player player, File folder, boolean liveTarget) {
+        String worldName = folder.getName();
+        SandboxInfo info = SandboxInfo.load(folder);
+        World sourceWorld = info != null ? Bukkit.getWorld(info.getSourceWorld()) : null;
+        if (sourceWorld == null) {
+            plugin.getLogger().warning("Cannot resume the build of " + worldName + ": its source world is not loaded");
+            return CompletableFuture.completedFuture(false);
+        }
+
+        Location center = new Location(sourceWorld, info.getCenterX(),
+            sourceWorld.getHighestBlockYAt(info.getCenterX(), info.getCenterZ()) + 1, info.getCenterZ());
+        return buildWorld(player, center, worldName, liveTarget, info.getRadius());
     }
 
     /**
      * Gets the sandbox world name for a player
      */
     public String getWorldName(Player player) {
+        if (pool != null) {
+            String pooled = pool.getAssignedWorld(player.getUniqueId());
+            if (pooled != null) {
+                return pooled;
+            }
+        }
+
         String prefix = plugin.getConfig().getString("world.name-prefix", "design_");
         return prefix + player.getUniqueId();
     }
@@ -42,7 +121,7 @@ public class WorldManager {
      */
     public boolean worldExists(Player player) {
         String worldName = getWorldName(player);
-        return mvWorldManager.isMVWorld(worldName);
+        return mvWorldManager.isMVWorld(worldName) || coldStorage.isArchived(worldName);
     }
 
     /**
@@ -51,40 +130,173 @@ public class WorldManager {
      */
     public CompletableFuture<Boolean> createWorld(Player player, Location center) {
         String worldName = getWorldName(player);
-        
+        CompletableFuture<Boolean> pending = pendingWorlds.get(worldName);
+        if (pending != null) {
+            return pending;
+        }
+
         // Check if world already exists
         if (worldExists(player)) {
             return CompletableFuture.completedFuture(true);
         }
 
-        // Check if there's already a copy task running for this world
-        if (activeCopyTasks.containsKey(worldName)) {
-            return activeCopyTasks.get(worldName).getFuture();
+        // Stream the regions into a ready world from the pool when there is one. Pooled worlds
+        // are overworlds, so sandboxes of the nether or the end are always created fresh.
+        boolean poolable = pool != null && center.getWorld().getEnvironment() == World.Environment.NORMAL;
+        String pooled = poolable ? pool.claim(player) : null;
+        if (pooled != null) {
+            Executor mainThread = plugin.getServer().getScheduler().getMainThreadExecutor(plugin);
+            return singleFlight(pooled, () -> buildWorld(player, center, pooled, true)
+                .thenApplyAsync(success -> {
+                    if (!success) {
+                        discardPooledWorld(pooled);
+                    }
+                    return success;
+                }, mainThread));
+        }
+
+        return singleFlight(worldName, () -> buildWorld(player, center, worldName, false));
+    }
+
+    /**
+     * Takes a pooled world back from a player whose build into it failed or was cancelled, and
+     * deletes it. Otherwise the empty world would count as their sandbox and never be built.
+     */
+    private void discardPooledWorld(String worldName) {
+        pool.release(worldName);
+        World world = Bukkit.getWorld(worldName);
+        if (world != null && (!world.getPlayers().isEmpty() || !unload(worldName, false))) {
+            plugin.getLogger().warning("Could not unload the pooled world " + worldName + " after its build failed; keeping its files");
+            return;
+        }
+        mvWorldManager.removeWorldFromConfig(worldName);
+        plugin.getCopyScheduler().getRegionStore().release(worldName);
+        plugin.getCopyScheduler().getDeletionService().delete(new File(plugin.getServer().getWorldContainer(), worldName).toPath());
+        plugin.getLogger().info("Deleted the pooled world " + worldName + " after its build failed");
+    }
+
+    /**
+     * Runs an operation that gets a sandbox ready, unless one is already running for the world,
+     * in which case that one's future is returned. Concurrent enters and resets of the same
+     * sandbox thus share one build instead of copying twice.
+     */
+    private CompletableFuture<Boolean> singleFlight(String worldName, Supplier<CompletableFuture<Boolean>> operation) {
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        CompletableFuture<Boolean> running = pendingWorlds.putIfAbsent(worldName, result);
+        if (running != null) {
+            return running;
+        }
+
+        CompletableFuture<Boolean> started;
+        try {
+            started = operation.get();
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
         }
+        started.whenComplete((success, error) -> {
+            // Leave the map first, so callbacks of the result see the operation as finished
+            pendingWorlds.remove(worldName, result);
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(success);
+            }
+        });
+        return result;
+    }
+
+    private CompletableFuture<Boolean> buildWorld(Player player, Location center, String worldName,
+                                                  boolean liveTarget) {
+        return buildWorld(player, center, worldName, liveTarget, plugin.getConfig().getInt("world.radius", 1000));
+    }
 
+    /**
+     * Copies the source world into the sandbox folder, updating any files already there. Callers
+     * go through {@link #singleFlight}, so there is at most one build per world.
+     * @param player The owner, or null when resuming a build after a restart
+     * @param liveTarget true if the sandbox world is already loaded
+     */
+    private CompletableFuture<Boolean> buildWorld(Player player, Location center, String worldName,
+                                                  boolean liveTarget, int radius) {
         // Calculate region files to copy
-        RegionCalculator calculator = new RegionCalculator(center, 
-            plugin.getConfig().getInt("world.radius", 1000));
+        RegionCalculator calculator = new RegionCalculator(center, radius);
 
         // Create and start the copy task
-        WorldCopyTask copyTask = new WorldCopyTask(plugin, player, center.getWorld(), worldName, calculator);
+        WorldCopyTask copyTask = new WorldCopyTask(plugin, player, center.getWorld(), worldName, calculator, liveTarget);
         activeCopyTasks.put(worldName, copyTask);
 
-        // Start the task and return its future
-        return copyTask.start().thenApply(success -> {
-            activeCopyTasks.remove(worldName);
-            if (success) {
+        // Start the task and finish the world on the main thread once the copy is done; the
+        // world stops counting as building however the copy ends
+        Executor mainThread = plugin.getServer().getScheduler().getMainThreadExecutor(plugin);
+        CompletableFuture<Boolean> copied;
+        try {
+            copied = copyTask.start();
+        } catch (RuntimeException e) {
+            copied = CompletableFuture.failedFuture(e);
+        }
+        return copied.handleAsync((success, error) -> {
+            activeCopyTasks.remove(worldName, copyTask);
+            if (error != null) {
+                plugin.getLogger().severe("Failed to build " + worldName + ": " + error.getMessage());
+                return false;
+            }
+            if (success && registerWorld(worldName, center.getWorld())) {
                 setupWorld(worldName);
-                playerWorlds.put(player.getUniqueId(), worldName);
+                if (player != null) {
+                    playerWorlds.put(player.getUniqueId(), worldName);
+                }
+                return true;
             }
-            return success;
-        });
+            return false;
+        }, mainThread);
+    }
+
+    /**
+     * Registers a copied world with Multiverse, which also loads it
+     * @param sourceWorld The world it was copied from, only used if Multiverse does not know it yet
+     */
+    private boolean registerWorld(String worldName, World sourceWorld) {
+        WorldRegisterEvent event = new WorldRegisterEvent();
+        event.begin();
+        long started = System.nanoTime();
+        boolean added = !mvWorldManager.isMVWorld(worldName);
+        // Pooled sandboxes restored from cold storage need their void generator back
+        SandboxInfo info = SandboxInfo.load(new File(plugin.getServer().getWorldContainer(), worldName));
+        String generator = info != null ? info.getGenerator() : null;
+        boolean registered = added
+            ? mvWorldManager.addWorld(worldName, sourceWorld.getEnvironment(),
+                String.valueOf(sourceWorld.getSeed()), WorldType.NORMAL, false, generator)
+            : mvWorldManager.loadWorld(worldName);
+        plugin.getMetrics().recordSince(Metrics.Phase.REGISTER, started);
+        if (event.shouldCommit()) {
+            event.setSandbox(worldName, getOwner(worldName));
+            event.added = added;
+            event.succeeded = registered;
+            event.commit();
+        }
+        return registered;
+    }
+
+    /**
+     * Unloads a sandbox world through Multiverse
+     */
+    private boolean unload(String worldName, boolean save) {
+        WorldUnloadEvent event = new WorldUnloadEvent();
+        event.begin();
+        boolean unloaded = mvWorldManager.unloadWorld(worldName, save);
+        if (event.shouldCommit()) {
+            event.setSandbox(worldName, getOwner(worldName));
+            event.saved = save;
+            event.succeeded = unloaded;
+            event.commit();
+        }
+        return unloaded;
     }
 
     /**
      * Sets up a newly created world with proper settings
      */
-    private void setupWorld(String worldName) {
+    public void setupWorld(String worldName) {
         World world = Bukkit.getWorld(worldName);
         if (world == null) return;
 
@@ -95,6 +307,7 @@ public class WorldManager {
         world.setGameRule(GameRule.DO_FIRE_TICK, false);
         world.setGameRule(GameRule.MOB_GRIEFING, false);
         world.setGameRule(GameRule.KEEP_INVENTORY, true);
+        world.setGameRule(GameRule.SPAWN_CHUNK_RADIUS, 0);
 
         // Set time to day
         world.setTime(6000);
@@ -103,30 +316,67 @@ public class WorldManager {
         world.setStorm(false);
         world.setThundering(false);
 
-        // Configure world border
+        // Configure world border. The copied data is a circle around where the sandbox was built,
+        // so the border and the spawn are put there; empty pooled worlds use the spawn.
         WorldBorder border = world.getWorldBorder();
-        int radius = plugin.getConfig().getInt("world.radius", 1000);
-        border.setCenter(world.getSpawnLocation());
-        border.setSize(radius * 2);
+        SandboxInfo info = SandboxInfo.load(world.getWorldFolder());
+        if (info != null) {
+            int x = info.getCenterX();
+            int z = info.getCenterZ();
+            world.setSpawnLocation(x, world.getHighestBlockYAt(x, z) + 1, z);
+            border.setCenter(x + 0.5, z + 0.5);
+            border.setSize(info.getRadius() * 2);
+        } else {
+            border.setCenter(world.getSpawnLocation());
+            border.setSize(plugin.getConfig().getInt("world.radius", 1000) * 2);
+        }
         border.setWarningDistance(50);
         border.setWarningTime(15);
     }
 
     /**
-     * Loads a player's sandbox world if it exists
+     * Loads a player's sandbox world if it exists, restoring it from cold storage first if needed
+     * @return CompletableFuture that completes on the main thread when the world is loaded
      */
-    public boolean loadWorld(Player player) {
+    public CompletableFuture<Boolean> loadWorld(Player player) {
         String worldName = getWorldName(player);
+        return singleFlight(worldName, () -> loadWorld(player, worldName));
+    }
+
+    private CompletableFuture<Boolean> loadWorld(Player player, String worldName) {
+        coldStorage.cancelArchive(worldName);
         if (!worldExists(player)) {
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
 
-        if (!mvWorldManager.loadWorld(worldName)) {
-            return false;
+        if (!mvWorldManager.isMVWorld(worldName)) {
+            Executor mainThread = plugin.getServer().getScheduler().getMainThreadExecutor(plugin);
+            long started = System.nanoTime();
+            return coldStorage.restore(worldName).thenApplyAsync(restored -> {
+                plugin.getMetrics().recordSince(Metrics.Phase.RESTORE, started);
+                if (!restored || !registerWorld(worldName, getSourceWorld(worldName))) {
+                    return false;
+                }
+                playerWorlds.put(player.getUniqueId(), worldName);
+                return true;
+            }, mainThread);
+        }
+
+        // Finish a build that was interrupted or left regions the server generated before they
+        // were copied, before anyone sees the world
+        File folder = new File(plugin.getServer().getWorldContainer(), worldName);
+        if (Bukkit.getWorld(worldName) == null && BuildJournal.exists(folder)
+                && !plugin.getLazyRegionLoader().isMaterializing(worldName)) {
+            return resumeBuild(player, folder, false);
+        }
+
+        // Known to Multiverse, so no source world is needed
+        if (!registerWorld(worldName, null)) {
+            return CompletableFuture.completedFuture(false);
         }
 
         playerWorlds.put(player.getUniqueId(), worldName);
-        return true;
+        return CompletableFuture.completedFuture(true);
     }
 
     /**
@@ -140,7 +390,7 @@ public class WorldManager {
 
         World world = Bukkit.getWorld(worldName);
         if (world != null && world.getPlayers().isEmpty()) {
-            if (mvWorldManager.unloadWorld(worldName, save)) {
+            if (unload(worldName, save)) {
                 playerWorlds.remove(player.getUniqueId());
                 return true;
             }
@@ -149,40 +399,162 @@ public class WorldManager {
     }
 
     /**
-     * Resets a player's sandbox world
+     * Cancels a player's sandbox build that is still waiting to be copied
+     * @return false if there is none or it is already copying
      */
-    public CompletableFuture<Boolean> resetWorld(Player player, Location center) {
-        // First unload the world
-        unloadWorld(player, false);
+    public boolean cancelBuild(Player player) {
+        WorldCopyTask task = activeCopyTasks.get(getWorldName(player));
+        return task != null && task.cancel();
+    }
+
+    /**
+     * Checks if a sandbox world is being copied
+     */
+    public boolean isBuilding(String worldName) {
+        return activeCopyTasks.containsKey(worldName);
+    }
 
-        // Delete the world files
+    /**
+     * Checks if a sandbox world is being built, restored, loaded or reset
+     */
+    public boolean isBusy(String worldName) {
+        return pendingWorlds.containsKey(worldName) || activeCopyTasks.containsKey(worldName);
+    }
+
+    /**
+     * Checks if a world was created by the warm pool, whether or not it has been given out yet
+     */
+    public boolean isPoolWorld(String worldName) {
+        return pool != null && (pool.isAvailable(worldName) || pool.isAssigned(worldName));
+    }
+
+    /**
+     * Checks if a world is an unassigned world in the warm pool
+     */
+    public boolean isPooledWorld(String worldName) {
+        return pool != null && pool.isAvailable(worldName);
+    }
+
+    /**
+     * Unloads an empty sandbox world by name, saving it first. Worlds that are being built and
+     * ready worlds in the pool stay loaded.
+     */
+    public boolean unloadSandbox(String worldName) {
+        World world = Bukkit.getWorld(worldName);
+        if (world == null || !world.getPlayers().isEmpty() || isBusy(worldName)) {
+            return false;
+        }
+        if (isPooledWorld(worldName)) {
+            return false;
+        }
+
+        if (unload(worldName, true)) {
+            playerWorlds.values().remove(worldName);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Resets a player's sandbox world. By default existing region files are updated in place, so
+     * only chunks changed in the sandbox or the source world since the last build are rewritten.
+     * Players in the sandbox are moved to the source world while it is unloaded.
+     */
+    public CompletableFuture<Boolean> resetWorld(Player player, Location center) {
         String worldName = getWorldName(player);
+        CompletableFuture<Boolean> pending = pendingWorlds.get(worldName);
+        if (pending != null && !activeCopyTasks.containsKey(worldName)) {
+            // A sandbox being loaded or restored is reset afterwards; a build already brings it up to date
+            Executor mainThread = plugin.getServer().getScheduler().getMainThreadExecutor(plugin);
+            return pending.thenComposeAsync(ignored -> resetWorld(player, center), mainThread);
+        }
+        return singleFlight(worldName, () -> resetWorld(player, center, worldName));
+    }
+
+    private CompletableFuture<Boolean> resetWorld(Player player, Location center, String worldName) {
+        coldStorage.cancelArchive(worldName);
         File worldFolder = new File(plugin.getServer().getWorldContainer(), worldName);
-        if (worldFolder.exists()) {
-            // Delete world files asynchronously
-            return CompletableFuture.supplyAsync(() -> {
-                deleteWorldFiles(worldFolder);
-                return true;
-            }).thenCompose(deleted -> createWorld(player, center));
+
+        // Unpack an archived sandbox so the reset only rewrites what changed
+        if (!mvWorldManager.isMVWorld(worldName) && coldStorage.isArchived(worldName)) {
+            Executor mainThread = plugin.getServer().getScheduler().getMainThreadExecutor(plugin);
+            return coldStorage.restore(worldName).thenComposeAsync(restored -> restored
+                ? resetWorld(player, center, worldName) : CompletableFuture.completedFuture(false), mainThread);
         }
 
-        // If world didn't exist, just create a new one
-        return createWorld(player, center);
+        World sourceWorld = getSourceWorld(worldName);
+        Location sourceCenter = new Location(sourceWorld, center.getX(), center.getY(), center.getZ());
+
+        // The world has to be unloaded before its files are rewritten
+        World sandbox = Bukkit.getWorld(worldName);
+        if (sandbox != null) {
+            evacuate(sandbox, sourceWorld);
+            if (!unload(worldName, true)) {
+                return CompletableFuture.completedFuture(false);
+            }
+        }
+
+        // A full reset throws the old files away and copies everything again
+        if ("full".equalsIgnoreCase(plugin.getConfig().getString("world.reset-mode", "delta")) && worldFolder.exists()) {
+            Executor mainThread = plugin.getServer().getScheduler().getMainThreadExecutor(plugin);
+            DeletionService deletions = plugin.getCopyScheduler().getDeletionService();
+            return deletions.delete(worldFolder.toPath())
+                .thenRunAsync(() -> plugin.getCopyScheduler().getRegionStore().release(worldName), deletions.getExecutor())
+                .thenComposeAsync(deleted -> buildWorld(player, sourceCenter, worldName, false), mainThread);
+        }
+
+        // A delta reset only rewrites the copied files, what the sandbox saved beside them goes
+        Executor mainThread = plugin.getServer().getScheduler().getMainThreadExecutor(plugin);
+        DeletionService deletions = plugin.getCopyScheduler().getDeletionService();
+        List<CompletableFuture<Void>> cleared = new ArrayList<>();
+        for (File folder : getUncopiedFolders(worldFolder, sourceWorld.getEnvironment())) {
+            cleared.add(deletions.delete(folder.toPath()));
+        }
+        return CompletableFuture.allOf(cleared.toArray(CompletableFuture<?>[]::new))
+            .thenComposeAsync(ignored -> buildWorld(player, sourceCenter, worldName, false), mainThread);
     }
 
     /**
-     * Recursively deletes a world folder
+     * Lists the folders a sandbox writes on its own that a build does not copy: saved data,
+     * player data, and the entities and POI folders when they are skipped
      */
-    private void deleteWorldFiles(File file) {
-        if (file.isDirectory()) {
-            File[] files = file.listFiles();
-            if (files != null) {
-                for (File child : files) {
-                    deleteWorldFiles(child);
-                }
+    private List<File> getUncopiedFolders(File worldFolder, World.Environment environment) {
+        File dataFolder = WorldCopyTask.getDataFolder(worldFolder, environment);
+        List<File> folders = new ArrayList<>();
+        folders.add(new File(dataFolder, "data"));
+        folders.add(new File(worldFolder, "playerdata"));
+        for (String name : new String[] { "entities", "poi" }) {
+            if ("skip".equalsIgnoreCase(plugin.getConfig().getString("world.folders." + name, "copy"))) {
+                folders.add(new File(dataFolder, name));
+            }
+        }
+        return folders;
+    }
+
+    /**
+     * Gets the world a sandbox was copied from, or the main world if it is not known
+     */
+    private World getSourceWorld(String worldName) {
+        SandboxInfo info = SandboxInfo.load(new File(plugin.getServer().getWorldContainer(), worldName));
+        if (info != null) {
+            World sourceWorld = Bukkit.getWorld(info.getSourceWorld());
+            if (sourceWorld != null) {
+                return sourceWorld;
             }
         }
-        file.delete();
+        return Bukkit.getWorlds().get(0);
+    }
+
+    /**
+     * Moves every player out of a sandbox into the same position in another world
+     */
+    private void evacuate(World sandbox, World target) {
+        for (Player occupant : sandbox.getPlayers()) {
+            Location location = occupant.getLocation().clone();
+            location.setWorld(target);
+            occupant.setGameMode(GameMode.SURVIVAL);
+            occupant.teleport(location);
+        }
     }
 
     /**
@@ -193,6 +565,37 @@ public class WorldManager {
         return Bukkit.getWorld(worldName);
     }
 
+    /**
+     * Gets the owner of a sandbox world, or null for pooled worlds nobody has been given yet
+     */
+    public UUID getOwner(String worldName) {
+        for (Map.Entry<UUID, String> entry : playerWorlds.entrySet()) {
+            if (entry.getValue().equals(worldName)) {
+                return entry.getKey();
+            }
+        }
+        // Pooled worlds are not named after their owner
+        UUID assigned = pool != null ? pool.getAssignedPlayer(worldName) : null;
+        if (assigned != null) {
+            return assigned;
+        }
+        return getOwner(worldName, plugin.getConfig().getString("world.name-prefix", "design_"));
+    }
+
+    /**
+     * Reads the owner from a sandbox world name made of the name prefix and a player UUID
+     */
+    static UUID getOwner(String worldName, String prefix) {
+        if (!worldName.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return UUID.fromString(worldName.substring(prefix.length()));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * Checks if a world is a sandbox world
      */
@@ -208,7 +611,7 @@ public class WorldManager {
         // Unload all sandbox worlds
         for (String worldName : playerWorlds.values()) {
             if (mvWorldManager.isMVWorld(worldName)) {
-                mvWorldManager.unloadWorld(worldName, true);
+                unload(worldName, true);
             }
         }
         playerWorlds.clear();
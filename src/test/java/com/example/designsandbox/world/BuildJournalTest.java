@@ -0,0 +1,72 @@
+package com.example.designsandbox.world;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BuildJournalTest {
+    private static final String EDITED = "region/r.0.0.mca";
+    private static final String GENERATED = "region/r.1.0.mca";
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void resumingKeepsEditedRegionsAndRecopiesInvalidatedOnes() throws IOException {
+        Path region = Files.createDirectories(folder.resolve("region")).resolve("r.0.0.mca");
+        Files.write(region, new byte[] { 1, 2, 3 });
+
+        BuildJournal journal = new BuildJournal(folder.toFile());
+        assertFalse(journal.isResumed());
+        journal.record(EDITED, 42);
+        journal.record(GENERATED, 7);
+        journal.invalidate(GENERATED);
+        journal.close();
+
+        // The player builds in the lazy sandbox before it is loaded again
+        byte[] edited = { 9, 9, 9, 9 };
+        Files.write(region, edited);
+
+        BuildJournal resumed = new BuildJournal(folder.toFile());
+        assertTrue(resumed.isResumed());
+        assertTrue(resumed.isCompleted(EDITED));
+        assertEquals(Long.valueOf(42), resumed.getCompletedHash(EDITED));
+        assertFalse(resumed.isCompleted(GENERATED));
+        assertFalse(resumed.isCompleted("region/r.2.0.mca"));
+        assertArrayEquals(edited, Files.readAllBytes(region));
+        resumed.close();
+    }
+
+    @Test
+    void tornLastLineIsIgnored() throws IOException {
+        BuildJournal journal = new BuildJournal(folder.toFile());
+        journal.record(EDITED, 42);
+        journal.close();
+        Files.write(folder.resolve(BuildJournal.FILE_NAME), "region/r.2.0.mca 12x".getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.APPEND);
+
+        BuildJournal resumed = new BuildJournal(folder.toFile());
+        assertTrue(resumed.isCompleted(EDITED));
+        assertFalse(resumed.isCompleted("region/r.2.0.mca"));
+        resumed.close();
+    }
+
+    @Test
+    void finishDeletesTheJournal() throws IOException {
+        BuildJournal journal = new BuildJournal(folder.toFile());
+        journal.record(EDITED, 42);
+        assertTrue(BuildJournal.exists(folder.toFile()));
+        journal.finish();
+        assertFalse(BuildJournal.exists(folder.toFile()));
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.designsandbox.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BuildQueueTest {
+
+    @Test
+    void weightTwoOwnerStartsTwoBuildsPerTurn() {
+        BuildQueue<Build> queue = queue();
+        Build a1 = add(queue, "a", 2);
+        Build a2 = add(queue, "a", 2);
+        Build a3 = add(queue, "a", 2);
+        Build b1 = add(queue, "b", 1);
+        Build b2 = add(queue, "b", 1);
+
+        List<Build> expected = List.of(a1, a2, b1, a3, b2);
+        assertEquals(expected, queue.getOrder());
+        assertEquals(expected, drain(queue));
+    }
+
+    @Test
+    void updatesGoFirst() {
+        BuildQueue<Build> queue = queue();
+        Build fresh = add(queue, "a", 1);
+        Build update = new Build("b", 1, true);
+        queue.add(update);
+
+        assertEquals(List.of(update, fresh), queue.getOrder());
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void orderMatchesPollingMidTurn() {
+        BuildQueue<Build> queue = queue();
+        add(queue, "a", 2);
+        add(queue, "a", 2);
+        add(queue, "a", 2);
+        add(queue, "b", 1);
+        queue.poll();
+
+        // a has one build left in its turn
+        List<Build> order = queue.getOrder();
+        assertEquals(order, drain(queue));
+        assertEquals("a", order.get(0).owner);
+        assertEquals("b", order.get(1).owner);
+    }
+
+    @Test
+    void removingTheOwnerOnTurnResetsTheTurn() {
+        BuildQueue<Build> queue = queue();
+        Build a1 = add(queue, "a", 2);
+        Build a2 = add(queue, "a", 2);
+        Build b1 = add(queue, "b", 2);
+        Build b2 = add(queue, "b", 2);
+
+        assertEquals(a1, queue.poll());
+        assertTrue(queue.remove(a2));
+        Build a3 = add(queue, "a", 2);
+
+        // b gets a whole turn, not what was left of a's
+        List<Build> expected = List.of(b1, b2, a3);
+        assertEquals(expected, queue.getOrder());
+        assertEquals(expected, drain(queue));
+    }
+
+    @Test
+    void removeOfUnknownBuildIsFalse() {
+        BuildQueue<Build> queue = queue();
+        Build a1 = add(queue, "a", 1);
+        assertFalse(queue.remove(new Build("a", 1, false)));
+        assertFalse(queue.remove(new Build("c", 1, false)));
+        assertEquals(a1, queue.poll());
+        assertNull(queue.poll());
+    }
+
+    private static BuildQueue<Build> queue() {
+        return new BuildQueue<>(build -> build.owner, build -> build.weight, build -> build.update);
+    }
+
+    private static Build add(BuildQueue<Build> queue, String owner, int weight) {
+        Build build = new Build(owner, weight, false);
+        queue.add(build);
+        return build;
+    }
+
+    private static List<Build> drain(BuildQueue<Build> queue) {
+        List<Build> started = new ArrayList<>();
+        Build next;
+        while ((next = queue.poll()) != null) {
+            started.add(next);
+        }
+        return started;
+    }
+
+    /**
+     * A queued build, equal only to itself
+     */
+    private static final class Build {
+        private final String owner;
+        private final int weight;
+        private final boolean update;
+
+        private Build(String owner, int weight, boolean update) {
+            this.owner = owner;
+            this.weight = weight;
+            this.update = update;
+        }
+
+        @Override
+        public String toString() {
+            return owner + "@" + Integer.toHexString(System.identityHashCode(this));
+        }
+    }
+}
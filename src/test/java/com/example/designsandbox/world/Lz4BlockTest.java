@@ -0,0 +1,121 @@
+package com.example.designsandbox.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class Lz4BlockTest {
+    private static final byte[] MAGIC = "LZ4Block".getBytes(StandardCharsets.US_ASCII);
+    private static final int RAW = 0x16;
+    private static final int COMPRESSED = 0x26;
+
+    @Test
+    void checksumMatchesReferenceXxHash32() {
+        // XXH32 with lz4-java's seed 0x9747b28c
+        assertEquals(0x8D3B42D8, Lz4Block.xxHash32(new byte[0], 0, 0));
+        assertEquals(0x7A41BFE3, Lz4Block.xxHash32(ascii("hello"), 0, 5));
+        byte[] longer = ascii("Nobody inspects the spammish repetition");
+        assertEquals(0x70B91719, Lz4Block.xxHash32(longer, 0, longer.length));
+        assertEquals(0x83FA9904, Lz4Block.xxHash32(new byte[64], 0, 64));
+    }
+
+    @Test
+    void emptyInputIsOnlyTheEndBlock() throws IOException {
+        byte[] expected = block(RAW, 0, 0, 0);
+        assertArrayEquals(expected, Lz4Block.compress(new byte[0]));
+        assertArrayEquals(new byte[0], Lz4Block.decompress(expected, 0, expected.length));
+    }
+
+    @Test
+    void incompressibleInputIsStoredRaw() throws IOException {
+        byte[] expected = concat(block(RAW, 5, 5, 0x0A41BFE3), ascii("hello"), block(RAW, 0, 0, 0));
+        assertArrayEquals(expected, Lz4Block.compress(ascii("hello")));
+        assertArrayEquals(ascii("hello"), Lz4Block.decompress(expected, 0, expected.length));
+    }
+
+    @Test
+    void repeatedBytesAreOneMatch() throws IOException {
+        // One literal, a match of 58 at offset 1 (15 in the token, 39 after the offset), then
+        // the five literals every block ends with
+        byte[] sequences = { 0x1F, 0x00, 0x01, 0x00, 0x27, 0x50, 0, 0, 0, 0, 0 };
+        byte[] expected = concat(block(COMPRESSED, sequences.length, 64, 0x03FA9904), sequences, block(RAW, 0, 0, 0));
+        assertArrayEquals(expected, Lz4Block.compress(new byte[64]));
+        assertArrayEquals(new byte[64], Lz4Block.decompress(expected, 0, expected.length));
+    }
+
+    @Test
+    void largeInputRoundTripsInBlocksOf64KiB() throws IOException {
+        byte[] data = new byte[200_000];
+        Random random = new Random(42);
+        for (int i = 0; i < data.length; i++) {
+            // Small alphabet so the matcher finds work
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+
+        byte[] stream = Lz4Block.compress(data);
+        assertArrayEquals(data, Lz4Block.decompress(stream, 0, stream.length));
+        assertEquals(1 << 16, readIntLE(stream, MAGIC.length + 5));
+        assertArrayEquals(block(RAW, 0, 0, 0), Arrays.copyOfRange(stream, stream.length - 21, stream.length));
+    }
+
+    @Test
+    void decompressesAtAnOffset() throws IOException {
+        byte[] stream = Lz4Block.compress(ascii("hello"));
+        byte[] padded = concat(new byte[7], stream, new byte[3]);
+        assertArrayEquals(ascii("hello"), Lz4Block.decompress(padded, 7, stream.length));
+    }
+
+    @Test
+    void rejectsBadChecksum() {
+        byte[] stream = Lz4Block.compress(ascii("hello"));
+        stream[MAGIC.length + 9] ^= 1;
+        assertThrows(IOException.class, () -> Lz4Block.decompress(stream, 0, stream.length));
+    }
+
+    @Test
+    void rejectsMissingEndBlock() {
+        byte[] stream = Lz4Block.compress(ascii("hello"));
+        assertThrows(IOException.class, () -> Lz4Block.decompress(stream, 0, stream.length - 21));
+    }
+
+    private static byte[] block(int token, int compressed, int original, int checksum) {
+        byte[] header = Arrays.copyOf(MAGIC, 21);
+        header[8] = (byte) token;
+        writeIntLE(header, 9, compressed);
+        writeIntLE(header, 13, original);
+        writeIntLE(header, 17, checksum);
+        return header;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.writeBytes(part);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static int readIntLE(byte[] data, int offset) {
+        return (data[offset] & 0xFF) | (data[offset + 1] & 0xFF) << 8
+            | (data[offset + 2] & 0xFF) << 16 | (data[offset + 3] & 0xFF) << 24;
+    }
+
+    private static void writeIntLE(byte[] data, int offset, int value) {
+        data[offset] = (byte) value;
+        data[offset + 1] = (byte) (value >>> 8);
+        data[offset + 2] = (byte) (value >>> 16);
+        data[offset + 3] = (byte) (value >>> 24);
+    }
+}
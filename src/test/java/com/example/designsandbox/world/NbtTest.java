@@ -0,0 +1,145 @@
+package com.example.designsandbox.world;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class NbtTest {
+
+    @Test
+    void everyTagTypeWritesBackTheSameBytes() throws IOException {
+        byte[] original = everyTag();
+        Map<String, Object> root = read(original);
+
+        assertEquals((byte) -3, root.get("byte"));
+        assertEquals(Long.MIN_VALUE, root.get("long"));
+        assertEquals("Überwelt", root.get("string"));
+        assertArrayEquals(new long[] { 1, -1 }, (long[]) root.get("longs"));
+        Nbt.NbtList sections = (Nbt.NbtList) root.get("sections");
+        assertEquals(2, sections.getValues().size());
+        assertInstanceOf(Map.class, sections.getValues().get(0));
+
+        assertArrayEquals(original, write(root));
+    }
+
+    @Test
+    void emptyListsKeepTheirElementType() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(10);
+        out.writeUTF("");
+        out.writeByte(9);
+        out.writeUTF("entities");
+        out.writeByte(10);
+        out.writeInt(0);
+        out.writeByte(0);
+
+        byte[] original = bytes.toByteArray();
+        Nbt.NbtList entities = (Nbt.NbtList) read(original).get("entities");
+        assertEquals(List.of(), entities.getValues());
+        assertArrayEquals(original, write(read(original)));
+    }
+
+    @Test
+    void rejectsRootThatIsNotACompound() {
+        byte[] data = { 8, 0, 0, 0, 0 };
+        assertThrows(IOException.class, () -> read(data));
+    }
+
+    @Test
+    void rejectsUnknownTagType() {
+        byte[] data = { 10, 0, 0, 13, 0, 1, 'x', 0 };
+        assertThrows(IOException.class, () -> read(data));
+    }
+
+    /**
+     * A chunk-like tree with one tag of every type, written by hand
+     */
+    private static byte[] everyTag() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(10);
+        out.writeUTF("");
+
+        out.writeByte(1);
+        out.writeUTF("byte");
+        out.writeByte(-3);
+        out.writeByte(2);
+        out.writeUTF("short");
+        out.writeShort(1234);
+        out.writeByte(3);
+        out.writeUTF("int");
+        out.writeInt(3955);
+        out.writeByte(4);
+        out.writeUTF("long");
+        out.writeLong(Long.MIN_VALUE);
+        out.writeByte(5);
+        out.writeUTF("float");
+        out.writeFloat(Float.NaN);
+        out.writeByte(6);
+        out.writeUTF("double");
+        out.writeDouble(-0.0);
+        out.writeByte(7);
+        out.writeUTF("bytes");
+        out.writeInt(3);
+        out.write(new byte[] { 1, 2, 3 });
+        out.writeByte(8);
+        out.writeUTF("string");
+        out.writeUTF("Überwelt");
+
+        out.writeByte(9);
+        out.writeUTF("sections");
+        out.writeByte(10);
+        out.writeInt(2);
+        for (int y = -4; y < -2; y++) {
+            out.writeByte(1);
+            out.writeUTF("Y");
+            out.writeByte(y);
+            out.writeByte(11);
+            out.writeUTF("ints");
+            out.writeInt(2);
+            out.writeInt(y);
+            out.writeInt(Integer.MAX_VALUE);
+            out.writeByte(0);
+        }
+
+        out.writeByte(12);
+        out.writeUTF("longs");
+        out.writeInt(2);
+        out.writeLong(1);
+        out.writeLong(-1);
+
+        out.writeByte(10);
+        out.writeUTF("nested");
+        out.writeByte(9);
+        out.writeUTF("names");
+        out.writeByte(8);
+        out.writeInt(1);
+        out.writeUTF("minecraft:stone");
+        out.writeByte(0);
+
+        out.writeByte(0);
+        return bytes.toByteArray();
+    }
+
+    private static Map<String, Object> read(byte[] data) throws IOException {
+        return Nbt.readRoot(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+
+    private static byte[] write(Map<String, Object> root) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Nbt.writeRoot(new DataOutputStream(bytes), root);
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.designsandbox.world;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PoolAssignmentsTest {
+    private static final UUID PLAYER = UUID.fromString("8667ba71-b85a-4004-af54-457a9734eed7");
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void claimGivesTheFirstUsableWorld() throws IOException {
+        PoolAssignments pool = new PoolAssignments(file());
+        pool.add("design_pool_gone");
+        pool.add("design_pool_a");
+
+        assertEquals("design_pool_a", pool.claim(PLAYER, worldName -> !worldName.endsWith("gone")));
+        assertEquals("design_pool_a", pool.getAssignedWorld(PLAYER));
+        assertEquals(PLAYER, pool.getAssignedPlayer("design_pool_a"));
+        assertEquals(0, pool.getAvailableCount());
+        assertNull(pool.claim(UUID.randomUUID(), worldName -> true));
+    }
+
+    @Test
+    void failedBuildReleasesTheWorld() throws IOException {
+        PoolAssignments pool = new PoolAssignments(file());
+        pool.add("design_pool_a");
+        pool.add("design_pool_b");
+        String claimed = pool.claim(PLAYER, worldName -> true);
+
+        // The build was cancelled or failed
+        assertEquals(PLAYER, pool.release(claimed));
+        assertNull(pool.getAssignedWorld(PLAYER));
+        assertFalse(pool.isAssigned(claimed));
+        // Regions copied so far may still be in it, so it is not handed out again
+        assertFalse(pool.isAvailable(claimed));
+        assertNull(pool.release(claimed));
+
+        // The next enter builds into another world
+        assertEquals("design_pool_b", pool.claim(PLAYER, worldName -> true));
+    }
+
+    @Test
+    void assignmentsSurviveARestart() throws IOException {
+        PoolAssignments pool = new PoolAssignments(file());
+        pool.add("design_pool_a");
+        pool.add("design_pool_b");
+        pool.claim(PLAYER, worldName -> true);
+
+        PoolAssignments reloaded = new PoolAssignments(file());
+        assertEquals("design_pool_a", reloaded.getAssignedWorld(PLAYER));
+        assertTrue(reloaded.isAvailable("design_pool_b"));
+
+        reloaded.release("design_pool_a");
+        assertNull(new PoolAssignments(file()).getAssignedWorld(PLAYER));
+    }
+
+    private File file() {
+        return folder.resolve("pool.yml").toFile();
+    }
+}
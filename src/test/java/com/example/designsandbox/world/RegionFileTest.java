@@ -0,0 +1,196 @@
+package com.example.designsandbox.world;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RegionFileTest {
+    private static final int SECTOR = RegionFile.SECTOR_BYTES;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void copyChunksPacksSectorsInIndexOrder() throws IOException {
+        Path source = folder.resolve("source").resolve("r.0.0.mca");
+        Files.createDirectories(source.getParent());
+        byte[] large = chunk(2, 5000, 1);
+        byte[] small = chunk(2, 100, 2);
+        new TestRegion()
+            // Out of index order, with a spare sector left by an earlier save
+            .chunk(5, 3, 2, 1700, small)
+            .chunk(0, 6, 2, 1600, large)
+            .chunk(40, 9, 1, 1800, chunk(2, 10, 3))
+            .write(source);
+
+        Path target = folder.resolve("r.0.0.mca");
+        IntPredicate filter = index -> index != 40;
+        long written = RegionFile.copyChunks(source, target, filter);
+
+        assertEquals(5L * SECTOR, written);
+        assertEquals(5L * SECTOR, Files.size(target));
+        RegionFile header = header(target);
+        assertEquals(2, header.getSectorOffset(0));
+        assertEquals(2, header.getSectorCount(0));
+        assertEquals(1600, header.getTimestamp(0));
+        assertEquals(4, header.getSectorOffset(5));
+        assertEquals(1, header.getSectorCount(5));
+        assertEquals(1700, header.getTimestamp(5));
+        assertFalse(header.hasChunk(40));
+        assertEquals(0, header.getTimestamp(40));
+
+        assertArrayEquals(large, stored(target, 2, large.length));
+        assertArrayEquals(small, stored(target, 4, small.length));
+        assertEquals(RegionFile.contentHash(source, filter), RegionFile.contentHash(target, filter));
+    }
+
+    @Test
+    void copyChunksWritesNothingWithoutChunks() throws IOException {
+        Path source = folder.resolve("source.mca");
+        new TestRegion().chunk(7, 2, 1, 1, chunk(2, 10, 1)).write(source);
+
+        Path target = folder.resolve("target.mca");
+        assertEquals(0, RegionFile.copyChunks(source, target, index -> false));
+        assertFalse(Files.exists(target));
+    }
+
+    @Test
+    void applyDeltaKeepsChunksWithEqualTimestamps() throws IOException {
+        Path source = folder.resolve("source").resolve("r.0.0.mca");
+        Files.createDirectories(source.getParent());
+        byte[] unchanged = chunk(2, 300, 1);
+        byte[] updated = chunk(2, 300, 2);
+        byte[] grown = chunk(2, 6000, 3);
+        new TestRegion()
+            .chunk(0, 2, 1, 100, unchanged)
+            .chunk(1, 3, 1, 200, updated)
+            .chunk(2, 4, 2, 300, grown)
+            .write(source);
+
+        // The sandbox edited chunk 0 without a newer save time, has an old chunk 1, a chunk 2
+        // too small for the new data and a chunk 3 the source no longer has
+        Path target = folder.resolve("r.0.0.mca");
+        byte[] edited = chunk(2, 300, 4);
+        new TestRegion()
+            .chunk(0, 2, 1, 100, edited)
+            .chunk(1, 3, 1, 150, chunk(2, 300, 5))
+            .chunk(2, 4, 1, 150, chunk(2, 300, 6))
+            .chunk(3, 5, 1, 150, chunk(2, 300, 7))
+            .write(target);
+
+        long written = RegionFile.applyDelta(source, target, index -> true);
+
+        assertEquals(3L * SECTOR, written);
+        RegionFile header = header(target);
+        assertArrayEquals(edited, stored(target, 2, edited.length));
+        assertEquals(100, header.getTimestamp(0));
+
+        assertEquals(3, header.getSectorOffset(1));
+        assertEquals(200, header.getTimestamp(1));
+        assertArrayEquals(updated, stored(target, 3, updated.length));
+
+        // Appended after the old end of the file
+        assertEquals(6, header.getSectorOffset(2));
+        assertEquals(2, header.getSectorCount(2));
+        assertArrayEquals(grown, stored(target, 6, grown.length));
+
+        assertFalse(header.hasChunk(3));
+        assertEquals(0, header.getTimestamp(3));
+    }
+
+    @Test
+    void externalChunksAreCopiedWithTheirRegion() throws IOException {
+        Path sourceFolder = Files.createDirectories(folder.resolve("source"));
+        Path source = sourceFolder.resolve("r.-1.2.mca");
+        // Chunk (1, 1) of region (-1, 2) is chunk (-31, 65); its data lives in an .mcc file
+        int index = RegionFile.chunkIndex(1, 1);
+        new TestRegion().chunk(index, 2, 1, 500, new byte[] { (byte) (0x80 | 2) }).write(source);
+        byte[] external = chunk(2, 2_000_000, 8);
+        Files.write(sourceFolder.resolve("c.-31.65.mcc"), external);
+
+        Path copyFolder = Files.createDirectories(folder.resolve("copy"));
+        RegionFile.copyChunks(source, copyFolder.resolve("r.-1.2.mca"), i -> true);
+        assertArrayEquals(external, Files.readAllBytes(copyFolder.resolve("c.-31.65.mcc")));
+
+        // An existing sandbox region without the chunk gets it, and its .mcc, from the delta
+        Path deltaFolder = Files.createDirectories(folder.resolve("delta"));
+        Path target = deltaFolder.resolve("r.-1.2.mca");
+        new TestRegion().write(target);
+        RegionFile.applyDelta(source, target, i -> true);
+        assertTrue(header(target).hasChunk(index));
+        assertArrayEquals(external, Files.readAllBytes(deltaFolder.resolve("c.-31.65.mcc")));
+    }
+
+    /**
+     * Makes a stored chunk: the compression type followed by filler data
+     */
+    private static byte[] chunk(int compression, int length, int seed) {
+        byte[] chunk = new byte[length];
+        chunk[0] = (byte) compression;
+        for (int i = 1; i < length; i++) {
+            chunk[i] = (byte) (i * 31 + seed);
+        }
+        return chunk;
+    }
+
+    private static RegionFile header(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return RegionFile.readHeader(channel);
+        }
+    }
+
+    /**
+     * Reads the chunk stored at a sector, checking its length field
+     */
+    private static byte[] stored(Path file, int sector, int length) throws IOException {
+        byte[] data = Files.readAllBytes(file);
+        int offset = sector * SECTOR;
+        assertEquals(length, ByteBuffer.wrap(data, offset, 4).getInt());
+        return Arrays.copyOfRange(data, offset + 4, offset + 4 + length);
+    }
+
+    /**
+     * Writes region files with chunks at chosen sectors
+     */
+    private static final class TestRegion {
+        private final int[] locations = new int[RegionFile.CHUNKS_PER_REGION];
+        private final int[] timestamps = new int[RegionFile.CHUNKS_PER_REGION];
+        private final byte[][] chunks = new byte[RegionFile.CHUNKS_PER_REGION][];
+
+        private TestRegion chunk(int index, int sector, int sectors, int timestamp, byte[] chunk) {
+            locations[index] = sector << 8 | sectors;
+            timestamps[index] = timestamp;
+            chunks[index] = chunk;
+            return this;
+        }
+
+        private void write(Path file) throws IOException {
+            int end = 2;
+            for (int location : locations) {
+                end = Math.max(end, (location >>> 8) + (location & 0xFF));
+            }
+
+            ByteBuffer data = ByteBuffer.allocate(end * SECTOR);
+            data.asIntBuffer().put(locations).put(timestamps);
+            for (int i = 0; i < chunks.length; i++) {
+                if (chunks[i] == null) continue;
+                data.position((locations[i] >>> 8) * SECTOR);
+                data.putInt(chunks[i].length).put(chunks[i]);
+            }
+            Files.write(file, data.array());
+        }
+    }
+}